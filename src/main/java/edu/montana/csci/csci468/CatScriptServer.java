@@ -1,7 +1,14 @@
 package edu.montana.csci.csci468;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompileOptions;
+import edu.montana.csci.csci468.bytecode.CompiledClassCache;
+import edu.montana.csci.csci468.bytecode.CompiledProgram;
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.OutputSink;
 import edu.montana.csci.csci468.js.JSTranspiler;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.optimizer.PassManager;
 import edu.montana.csci.csci468.parser.CatScriptParser;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.ParseErrorException;
@@ -9,25 +16,45 @@ import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
 import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
 import edu.montana.csci.csci468.tokenizer.TokenList;
 import edu.montana.csci.csci468.util.HTMLParseTreeRenderer;
+import edu.montana.csci.csci468.util.ResultCache;
 import edu.montana.csci.csci468.util.Web;
+import spark.Request;
+import spark.Route;
 import spark.Spark;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static spark.Spark.*;
 
 class CatScriptServer {
+    private static final CompiledClassCache COMPILED_CLASSES = new CompiledClassCache();
+    private static final CompileOptions COMPILE_OPTIONS = CompileOptions.fromSystemProperties();
+    private static final ResultCache RESULTS = new ResultCache();
+
     public static void main(String[] args) {
         port(6789);
         Spark.staticFiles.location("/public");
         Web.init();
 
+        // every script endpoint takes ?opt=, a bad one is the client's mistake and not a 500
+        before((req, resp) -> {
+            try {
+                optimizationLevel(req);
+            } catch (IllegalArgumentException badLevel) {
+                halt(400, "<pre>" + escapeHtml(badLevel.getMessage()) + "</pre>");
+            }
+        });
+
         get("/", (req, resp) -> {
 
             String name = req.queryParams("file");
@@ -60,25 +87,26 @@ class CatScriptServer {
             return HTMLParseTreeRenderer.render(program);
         });
 
-        get("/evaluate", (req, resp) -> {
+        get("/evaluate", cached("evaluate", (req, out) -> {
             String source = req.queryParams("src");
             CatScriptProgram program = new CatScriptParser().parse(source);
             try {
                 program.verify();
-                program.execute();
-                return program.getOutput();
+                CatScriptProgram optimized = optimize(req, program);
+                return stream(out, output -> optimized.execute(new CatscriptRuntime(output)));
             } catch (ParseErrorException parseErrorException) {
                 parseErrorException.printStackTrace();
                 return "<pre>" + parseErrorException.getMessage() + "</pre>";
             }
-        });
+        }));
 
-        get("/transpile", (req, resp) -> {
+        get("/transpile", cached("transpile", (req, out) -> {
             String source = req.queryParams("src");
 
             CatScriptProgram program = new CatScriptParser().parse(source);
             try {
                 program.verify();
+                program = optimize(req, program);
                 JSTranspiler jsTranspiler = new JSTranspiler(program);
                 String jsSource = jsTranspiler.getJavascriptSource();
                 String output = jsTranspiler.evaluate();
@@ -87,17 +115,36 @@ class CatScriptServer {
                 parseErrorException.printStackTrace();
                 return "<pre>" + parseErrorException.getMessage() + "</pre>";
             }
-        });
+        }));
+
+        get("/compile", cached("compile", (req, out) -> {
+            String source = req.queryParams("src");
+            try {
+                String key = CompiledClassCache.keyFor(source, optimizationLevel(req).name());
+                Class<? extends CatScriptProgram> programClass = COMPILED_CLASSES.computeIfAbsent(key,
+                        () -> ByteCodeGenerator.compileSource(source, optimizationLevel(req), COMPILE_OPTIONS));
+                return stream(out, CompiledProgram.of(programClass)::run);
+            } catch (ParseErrorException parseErrorException) {
+                parseErrorException.printStackTrace();
+                return "<pre>" + parseErrorException.getMessage() + "</pre>";
+            }
+        }));
 
-        get("/compile", (req, resp) -> {
+        get("/results/cache", (req, resp) -> "<pre>" + RESULTS + "</pre>");
+
+        get("/compile/cache", (req, resp) -> "<pre>" + COMPILED_CLASSES +
+                (COMPILE_OPTIONS.getDiskCache() == null ? "" : "\ndisk " + COMPILE_OPTIONS.getDiskCache()) + "</pre>");
+
+        get("/disassemble", (req, resp) -> {
             String source = req.queryParams("src");
             CatScriptProgram program = new CatScriptParser().parse(source);
             try {
                 program.verify();
-                ByteCodeGenerator byteCodeGenerator = new ByteCodeGenerator(program);
-                CatScriptProgram compiledProgram = byteCodeGenerator.compileToBytecode();
-                compiledProgram.execute();
-                return compiledProgram.getOutput();
+                program = optimize(req, program);
+                CompileOptions options = CompileOptions.defaults().setVerify(true).setDisassemble(true);
+                ByteCodeGenerator byteCodeGenerator = new ByteCodeGenerator(program, options);
+                byteCodeGenerator.compileToClass();
+                return "<pre>" + escapeHtml(byteCodeGenerator.getDisassembly()) + "</pre>";
             } catch (ParseErrorException parseErrorException) {
                 parseErrorException.printStackTrace();
                 return "<pre>" + parseErrorException.getMessage() + "</pre>";
@@ -105,4 +152,93 @@ class CatScriptServer {
         });
 
     }
-}
\ No newline at end of file
+
+    // Answers from RESULTS when it can: a request carrying the ETag of a cached key gets a 304
+    // before anything is parsed, a cached response is sent as is, and otherwise the endpoint runs
+    // and its response is recorded on the way out.  Only cached responses carry an ETag, the
+    // headers of a streamed one go out before it is known whether the run succeeds.  Failed
+    // requests are not cached: they get a 500, or, when the failure comes after some of the
+    // response went out, an aborted response.
+    private static Route cached(String endpoint, ScriptEndpoint script) {
+        return (req, resp) -> {
+            String key = RESULTS.keyFor(req.queryParams("src"), endpoint + "/" + optimizationLevel(req).name());
+            resp.type("text/html; charset=utf-8");
+            if (ResultCache.matches(req.headers("If-None-Match"), key) && RESULTS.contains(key)) {
+                RESULTS.countNotModified();
+                resp.header("ETag", ResultCache.etagFor(key));
+                resp.status(304);
+                return "";
+            }
+            OutputStream out = resp.raw().getOutputStream();
+            byte[] result = RESULTS.get(key);
+            if (result != null) {
+                resp.header("ETag", ResultCache.etagFor(key));
+                out.write(result);
+                return "";
+            }
+            ResultCache.Recorder recorder = RESULTS.record(out);
+            try {
+                recorder.write(script.respond(req, recorder).getBytes(StandardCharsets.UTF_8));
+                recorder.flush();
+            } catch (Exception failure) {
+                if (!resp.raw().isCommitted()) {
+                    // nothing went out yet, drop what is buffered and let Web answer with a 500
+                    resp.raw().resetBuffer();
+                    throw failure;
+                }
+                abort(req, out, failure);
+                return "";
+            }
+            if (recorder.getBytes() != null) {
+                RESULTS.put(key, recorder.getBytes());
+            }
+            return "";
+        };
+    }
+
+    // an endpoint whose response only depends on the source and options of the request.  It
+    // returns its response, or writes it to out and returns ""
+    private interface ScriptEndpoint {
+        String respond(Request req, OutputStream out) throws Exception;
+    }
+
+    // A response that failed after its 200 and first chunks went out.  The error is appended where
+    // the reader will see it, and the connection is dropped without the last chunk, so clients
+    // can tell the response is incomplete.
+    private static void abort(Request req, OutputStream out, Exception failure) {
+        failure.printStackTrace();
+        try {
+            out.write(("\n<pre>Error: " + escapeHtml(String.valueOf(failure)) + "</pre>").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException clientGone) {
+            // nothing more to tell it
+        }
+        org.eclipse.jetty.server.Request.getBaseRequest(req.raw()).getHttpChannel().abort(failure);
+    }
+
+    // Writes the output to the response while the program runs instead of collecting it first.
+    // Without a content length Jetty sends it chunked, every full response buffer goes out as a
+    // chunk, and writes block while the client is behind, so a program never gets more than a
+    // buffer ahead of its reader.  A client that goes away fails the next write, ending the run.
+    // The output of a run that fails is not flushed, so that if none of it went out yet the
+    // request can still fail with a 500.
+    private static String stream(OutputStream out, Consumer<OutputSink> program) {
+        OutputSink output = OutputSink.to(out);
+        program.accept(output);
+        output.flush();
+        return "";
+    }
+
+    // the optimization level can be picked with ?opt=-O0, -O1 (default) or -O2
+    private static OptimizationLevel optimizationLevel(Request req) {
+        return OptimizationLevel.parse(req.queryParams("opt"));
+    }
+
+    private static CatScriptProgram optimize(Request req, CatScriptProgram program) {
+        return new PassManager(optimizationLevel(req)).optimize(program);
+    }
+
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
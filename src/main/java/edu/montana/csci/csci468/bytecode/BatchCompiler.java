@@ -0,0 +1,193 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.objectweb.asm.ClassTooLargeException;
+import org.objectweb.asm.MethodTooLargeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Compiles many programs at once.  Instead of a class per program, up to programsPerClass
+// programs share a class (their globals and functions prefixed per program), and all classes
+// of a batch are defined in one class loader, which removes most of the per program cost of
+// defining, verifying and linking a class.
+public class BatchCompiler {
+
+    public static final int DEFAULT_PROGRAMS_PER_CLASS = 128;
+
+    private final CompileOptions options;
+    private final int programsPerClass;
+
+    public BatchCompiler() {
+        this(CompileOptions.defaults());
+    }
+
+    public BatchCompiler(CompileOptions options) {
+        this(options, DEFAULT_PROGRAMS_PER_CLASS);
+    }
+
+    public BatchCompiler(CompileOptions options, int programsPerClass) {
+        if (programsPerClass < 1) {
+            throw new IllegalArgumentException("programsPerClass must be positive: " + programsPerClass);
+        }
+        this.options = options;
+        this.programsPerClass = programsPerClass;
+    }
+
+    // verified (and optionally optimized) programs in, a handle per program out, in order.
+    // The classes are generated on the options' codegen executor when there is one.
+    public List<ProgramHandle> compile(List<CatScriptProgram> programs) {
+        List<List<BatchClass>> groups = new ArrayList<>();
+        List<Future<List<BatchClass>>> futures = new ArrayList<>();
+        ExecutorService executor = options.getCodegenExecutor();
+        for (int i = 0; i < programs.size(); i += programsPerClass) {
+            List<CatScriptProgram> group = programs.subList(i, Math.min(i + programsPerClass, programs.size()));
+            if (executor == null) {
+                groups.add(generate(group));
+            } else {
+                futures.add(executor.submit(() -> generate(group)));
+            }
+        }
+        for (Future<List<BatchClass>> future : futures) {
+            groups.add(join(future));
+        }
+
+        ByteCodeGenerator.DynamicClassLoader classLoader =
+                new ByteCodeGenerator.DynamicClassLoader(BatchCompiler.class.getClassLoader(), Map.of());
+        List<ProgramHandle> handles = new ArrayList<>(programs.size());
+        for (List<BatchClass> group : groups) {
+            for (BatchClass batchClass : group) {
+                if (batchClass.programClass != null) {
+                    handles.add(new ProgramHandle(batchClass.programClass, standaloneConstructorOf(batchClass.programClass), 0));
+                    continue;
+                }
+                Class<? extends CatScriptProgram> programClass = classLoader
+                        .defineClass(batchClass.className.replace('/', '.'), batchClass.bytes)
+                        .asSubclass(CatScriptProgram.class);
+                MethodHandle constructor = constructorOf(programClass);
+                for (int index = 0; index < batchClass.programs; index++) {
+                    handles.add(new ProgramHandle(programClass, constructor, index));
+                }
+            }
+        }
+        return handles;
+    }
+
+    // A group can outgrow the class file limits: 64K constant pool entries for the class and 64K
+    // of code per method.  Such a group is split in half until the halves fit, and a program that
+    // doesn't fit even on its own is compiled like any other, where (with a codegen executor) its
+    // functions are split off into classes of their own.
+    private List<BatchClass> generate(List<CatScriptProgram> group) {
+        String className = ByteCodeGenerator.newClassName("CatScriptBatch");
+        try {
+            return List.of(new BatchClass(className, ByteCodeGenerator.generateBatchClass(className, group, options), group.size()));
+        } catch (ClassTooLargeException | MethodTooLargeException tooLarge) {
+            if (group.size() == 1) {
+                return List.of(new BatchClass(new ByteCodeGenerator(group.get(0), options).compileToClass()));
+            }
+            List<BatchClass> classes = new ArrayList<>(generate(group.subList(0, group.size() / 2)));
+            classes.addAll(generate(group.subList(group.size() / 2, group.size())));
+            return classes;
+        }
+    }
+
+    private static MethodHandle constructorOf(Class<? extends CatScriptProgram> batchClass) {
+        try {
+            return MethodHandles.publicLookup()
+                    .findConstructor(batchClass, MethodType.methodType(void.class, int.class))
+                    .asType(MethodType.methodType(CatScriptProgram.class, int.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // a program compiled on its own ignores the index
+    private static MethodHandle standaloneConstructorOf(Class<? extends CatScriptProgram> programClass) {
+        try {
+            MethodHandle constructor = MethodHandles.publicLookup()
+                    .findConstructor(programClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(CatScriptProgram.class));
+            return MethodHandles.dropArguments(constructor, 0, int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<BatchClass> join(Future<List<BatchClass>> batchClasses) {
+        try {
+            return batchClasses.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // the next programs of the batch, generated into one class, or one program compiled on its own
+    private static class BatchClass {
+        private final String className;
+        private final byte[] bytes;
+        private final int programs;
+        private final Class<? extends CatScriptProgram> programClass;
+
+        BatchClass(String className, byte[] bytes, int programs) {
+            this.className = className;
+            this.bytes = bytes;
+            this.programs = programs;
+            this.programClass = null;
+        }
+
+        BatchClass(Class<? extends CatScriptProgram> programClass) {
+            this.className = null;
+            this.bytes = null;
+            this.programs = 1;
+            this.programClass = programClass;
+        }
+    }
+
+    // one compiled program of a batch
+    public static class ProgramHandle {
+        private final Class<? extends CatScriptProgram> batchClass;
+        private final MethodHandle constructor;
+        private final int index;
+
+        ProgramHandle(Class<? extends CatScriptProgram> batchClass, MethodHandle constructor, int index) {
+            this.batchClass = batchClass;
+            this.constructor = constructor;
+            this.index = index;
+        }
+
+        // a fresh instance with its own globals and output, like ByteCodeGenerator.newInstance()
+        public CatScriptProgram newInstance() {
+            try {
+                return (CatScriptProgram) constructor.invokeExact(index);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public Class<? extends CatScriptProgram> getBatchClass() {
+            return batchClass;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+    }
+}
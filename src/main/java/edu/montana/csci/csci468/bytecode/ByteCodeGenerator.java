@@ -1,64 +1,355 @@
 package edu.montana.csci.csci468.bytecode;
 
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.optimizer.PassManager;
+import edu.montana.csci.csci468.parser.CatScriptParser;
 import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
+import edu.montana.csci.csci468.parser.statements.Statement;
 import org.objectweb.asm.*;
+import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.util.CheckClassAdapter;
 import org.objectweb.asm.util.TraceClassVisitor;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.Stack;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class ByteCodeGenerator {
 
     private static final AtomicInteger classInteger = new AtomicInteger();
-    private static final DynamicClassLoader CLASS_LOADER = new DynamicClassLoader();
-
-    private ClassWriter classWriter;
+    // the newest classfile version the bundled ASM release can write and read back
+    private static final int LATEST_SUPPORTED_VERSION = Opcodes.V16;
+    // StringConcatFactory takes at most 200 argument slots
+    public static final int MAX_CONCAT_ARGUMENTS = 200;
+    private static final Handle MAKE_CONCAT_WITH_CONSTANTS = new Handle(Opcodes.H_INVOKESTATIC,
+            "java/lang/invoke/StringConcatFactory", "makeConcatWithConstants",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;" +
+                    "Ljava/lang/String;[Ljava/lang/Object;)Ljava/lang/invoke/CallSite;", false);
+    private static final Handle LINK_FUNCTION = new Handle(Opcodes.H_INVOKESTATIC,
+            internalNameFor(FunctionLinker.class), "bootstrap",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;" +
+                    "Ljava/lang/invoke/MethodHandle;)Ljava/lang/invoke/CallSite;", false);
+    private static final AtomicInteger redefinitionInteger = new AtomicInteger();
+
+    private ClassNode classNode;
     private MethodGenerator currentMethod;
     private Stack<MethodGenerator> methodStack;
 
     private final CatScriptProgram program;
+    private final CompileOptions options;
     private String internalClassName;
-    private String dotClassName;
+    // function method name -> the class holding it as a static method, null when every
+    // function is an instance method of the program class
+    private Map<String, String> functionOwners;
+    // every generated class by internal name, the program class first
+    private Map<String, byte[]> classes;
+    private Class<? extends CatScriptProgram> programClass;
+    // prepended to the fields and methods of the program, so several programs can share a
+    // class (see BatchCompiler)
+    private String memberPrefix = "";
+    private byte[] classBytes;
+    private String disassembly;
+    private long compileNanos;
 
     public ByteCodeGenerator(CatScriptProgram program) {
+        this(program, CompileOptions.defaults());
+    }
+
+    public ByteCodeGenerator(CatScriptProgram program, CompileOptions options) {
         this.program = program;
+        this.options = options;
+    }
+
+    // generates a class of functions for the program parent is generating
+    private ByteCodeGenerator(ByteCodeGenerator parent) {
+        this.program = parent.program;
+        this.options = parent.options;
+        this.internalClassName = parent.internalClassName;
+        this.functionOwners = parent.functionOwners;
+    }
+
+    // parses, verifies, optimizes and compiles source.  With a DiskClassCache in the options
+    // a class stored by this or any other process is loaded without running the front end.
+    public static Class<? extends CatScriptProgram> compileSource(String source, OptimizationLevel level, CompileOptions options) {
+        DiskClassCache diskCache = options.getDiskCache();
+        String key = null;
+        if (diskCache != null) {
+            key = DiskClassCache.keyFor(source, level.name() + (options.isPeephole() ? "" : "-nopeephole"));
+            byte[] classBytes = diskCache.read(key);
+            if (classBytes != null) {
+                try {
+                    return defineClass(null, classBytes);
+                } catch (LinkageError | ClassCastException e) {
+                    diskCache.remove(key);
+                }
+            }
+        }
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        program = new PassManager(level).optimize(program);
+        ByteCodeGenerator generator = new ByteCodeGenerator(program, options);
+        Class<? extends CatScriptProgram> programClass = generator.compileToClass();
+        // programs split into several classes are not stored, an entry holds one class
+        if (diskCache != null && generator.getClasses().size() == 1) {
+            diskCache.write(key, generator.getClassBytes());
+        }
+        return programClass;
     }
 
     public CatScriptProgram compileToBytecode() {
+        return newInstance(compileToClass());
+    }
+
+    // the compiled program, to be run as often and from as many threads as needed
+    public CompiledProgram compile() {
+        return CompiledProgram.of(compileToClass());
+    }
+
+    // each class is defined in its own loader, so it can be unloaded once nothing
+    // (a cache entry or a running program) refers to it anymore
+    public Class<? extends CatScriptProgram> compileToClass() {
+        long start = System.nanoTime();
+        generateClass(newClassName("CatScriptProgram"), internalNameFor(CatScriptProgram.class), false);
+        programClass = defineClasses(classes);
+        compileNanos = System.nanoTime() - start;
+        return programClass;
+    }
+
+    // generates a class that only depends on StandaloneProgram and java.base and has a
+    // main method, for writing out ahead of time (see JarCompiler)
+    public byte[] compileStandalone(String className) {
+        long start = System.nanoTime();
+        generateClass(className.replace('.', '/'), internalNameFor(StandaloneProgram.class), true);
+        compileNanos = System.nanoTime() - start;
+        return classBytes;
+    }
+
+    static String newClassName(String simpleName) {
+        return "edu/montana/csci/csci466/bytecode/" + simpleName + classInteger.incrementAndGet();
+    }
+
+    // one class for many programs.  Program i is compiled into p<i>$ prefixed members and
+    // instances created with the index i run it from execute().
+    static byte[] generateBatchClass(String className, List<CatScriptProgram> programs, CompileOptions options) {
+        ByteCodeGenerator batch = new ByteCodeGenerator(null, options);
+        batch.methodStack = new Stack<>();
+        batch.classNode = new ClassNode();
+        batch.internalClassName = className;
+        batch.makeClass(className, internalNameFor(CatScriptProgram.class));
+        batch.classNode.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "$index", "I", null, null).visitEnd();
+        try (MethodGenerator constructor = batch.makeMethod(Opcodes.ACC_PUBLIC, "<init>", "(I)V")) {
+            constructor.addVarInstruction(Opcodes.ALOAD, 0);
+            constructor.addMethodInstruction(Opcodes.INVOKESPECIAL, internalNameFor(CatScriptProgram.class), "<init>", "()V");
+            constructor.addVarInstruction(Opcodes.ALOAD, 0);
+            constructor.addVarInstruction(Opcodes.ILOAD, 1);
+            constructor.addFieldInstruction(Opcodes.PUTFIELD, className, "$index", "I");
+            constructor.addInstruction(Opcodes.RETURN);
+        }
+        try (MethodGenerator execute = batch.makeMethod(Opcodes.ACC_PUBLIC, "execute", "()V")) {
+            Label[] labels = new Label[programs.size()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = new Label();
+            }
+            Label end = new Label();
+            execute.addVarInstruction(Opcodes.ALOAD, 0);
+            execute.addFieldInstruction(Opcodes.GETFIELD, className, "$index", "I");
+            execute.addTableSwitchInstruction(0, labels.length - 1, end, labels);
+            for (int i = 0; i < labels.length; i++) {
+                execute.addLabel(labels[i]);
+                execute.addVarInstruction(Opcodes.ALOAD, 0);
+                execute.addMethodInstruction(Opcodes.INVOKEVIRTUAL, className, "p" + i + "$execute", "()V");
+                execute.addInstruction(Opcodes.RETURN);
+            }
+            execute.addLabel(end);
+            execute.addInstruction(Opcodes.RETURN);
+        }
+        for (int i = 0; i < programs.size(); i++) {
+            ByteCodeGenerator member = new ByteCodeGenerator(programs.get(i), options);
+            member.methodStack = new Stack<>();
+            member.classNode = batch.classNode;
+            member.internalClassName = className;
+            member.memberPrefix = "p" + i + "$";
+            member.currentMethod = member.makeMethod(Opcodes.ACC_PUBLIC, member.memberPrefix + "execute", "()V");
+            member.program.compile(member);
+            member.currentMethod.close();
+        }
+        batch.classNode.visitEnd();
+        return batch.writeClass(className);
+    }
+
+    private void generateClass(String className, String superName, boolean standalone) {
         methodStack = new Stack<>();
-        classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
-        internalClassName = "edu/montana/csci/csci466/bytecode/CatScriptProgram" + classInteger.incrementAndGet();
-        dotClassName = internalClassName.replace('/', '.');
-        makeClass(internalClassName);
-        makeConstructor();
+        classNode = new ClassNode();
+        classes = new LinkedHashMap<>();
+        disassembly = null;
+        internalClassName = className;
+        makeClass(internalClassName, superName);
+        makeConstructor(superName);
+        if (standalone) {
+            makeMain();
+        }
+
+        // the function classes are generated on the executor while this thread does the
+        // program class, functionOwners is complete before any call is compiled
+        List<Future<ByteCodeGenerator>> functionClasses = generateFunctionClasses();
 
         currentMethod = makeMethod(Opcodes.ACC_PUBLIC, "execute", "()V");
         program.compile(this);
         currentMethod.close();
 
-        classWriter.visitEnd();
-        byte[] classBytes = classWriter.toByteArray();
-        printClassASM(classBytes);
-        return loadClass(dotClassName, classBytes);
+        classNode.visitEnd();
+        classBytes = writeClass(internalClassName);
+        for (Future<ByteCodeGenerator> functionClass : functionClasses) {
+            ByteCodeGenerator generated = join(functionClass);
+            classes.put(generated.classNode.name, generated.classBytes);
+            if (generated.disassembly != null) {
+                disassembly += generated.disassembly;
+            }
+        }
+    }
+
+    private List<Future<ByteCodeGenerator>> generateFunctionClasses() {
+        functionOwners = null;
+        ExecutorService executor = options.getCodegenExecutor();
+        List<FunctionDefinitionStatement> functions = new ArrayList<>();
+        for (Statement statement : program.getStatements()) {
+            if (statement instanceof FunctionDefinitionStatement) {
+                functions.add((FunctionDefinitionStatement) statement);
+            }
+        }
+        int functionsPerClass = options.getFunctionsPerClass();
+        List<Future<ByteCodeGenerator>> functionClasses = new ArrayList<>();
+        if (executor == null || functions.size() <= functionsPerClass) {
+            return functionClasses;
+        }
+        functionOwners = new HashMap<>();
+        List<List<FunctionDefinitionStatement>> groups = new ArrayList<>();
+        for (int i = 0; i < functions.size(); i += functionsPerClass) {
+            List<FunctionDefinitionStatement> group = functions.subList(i, Math.min(i + functionsPerClass, functions.size()));
+            String owner = internalClassName + "$Functions" + groups.size();
+            for (FunctionDefinitionStatement function : group) {
+                functionOwners.put(function.getMethodName(), owner);
+            }
+            groups.add(group);
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            String owner = internalClassName + "$Functions" + i;
+            List<FunctionDefinitionStatement> group = groups.get(i);
+            functionClasses.add(executor.submit(() -> new ByteCodeGenerator(this).generateFunctionClass(owner, group)));
+        }
+        return functionClasses;
+    }
+
+    private ByteCodeGenerator generateFunctionClass(String className, List<FunctionDefinitionStatement> functions) {
+        methodStack = new Stack<>();
+        classNode = new ClassNode();
+        classNode.visit(classfileVersion(), Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER | Opcodes.ACC_FINAL,
+                className, null, internalNameFor(Object.class), null);
+        for (FunctionDefinitionStatement function : functions) {
+            function.compileFunction(this);
+        }
+        classNode.visitEnd();
+        classBytes = writeClass(className);
+        return this;
+    }
+
+    private static ByteCodeGenerator join(Future<ByteCodeGenerator> functionClass) {
+        try {
+            return functionClass.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private byte[] writeClass(String className) {
+        if (options.isPeephole()) {
+            new PeepholeOptimizer().optimize(classNode);
+        }
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+        classNode.accept(classWriter);
+        byte[] bytes = classWriter.toByteArray();
+        if (options.isVerify() || options.isDisassemble() || options.getDumpDirectory() != null) {
+            inspectClass(className, bytes);
+        }
+        if (classes != null) {
+            classes.put(className, bytes);
+        }
+        return bytes;
+    }
+
+    // the program class, see getClasses() for the function classes of split programs
+    public byte[] getClassBytes() {
+        return classBytes;
     }
 
-    private void makeClass(String className) {
-        classWriter.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC,
-                className, null, internalNameFor(CatScriptProgram.class) , null);
+    // every generated class by internal name, the program class first
+    public Map<String, byte[]> getClasses() {
+        return classes;
     }
 
-    private void makeConstructor() {
+    // the disassembly of the last compiled class, if CompileOptions asked for one
+    public String getDisassembly() {
+        return disassembly;
+    }
+
+    public long getCompileNanos() {
+        return compileNanos;
+    }
+
+    public static CatScriptProgram newInstance(Class<? extends CatScriptProgram> programClass) {
+        return CompiledProgram.of(programClass).newExecution();
+    }
+
+    private void makeClass(String className, String superName) {
+        classNode.visit(classfileVersion(), Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER,
+                className, null, superName, null);
+    }
+
+    // the running JVM's classfile version, so that generated code can use everything it offers
+    public static int classfileVersion() {
+        int feature = Runtime.version().feature();
+        return Math.min(Opcodes.V1_8 + (feature - 8), LATEST_SUPPORTED_VERSION);
+    }
+
+    private void makeConstructor(String superName) {
         try (MethodGenerator constructor = makeMethod(Opcodes.ACC_PUBLIC, "<init>", "()V")) {
             constructor.addVarInstruction(Opcodes.ALOAD, 0);
-            constructor.addMethodInstruction(Opcodes.INVOKESPECIAL, internalNameFor(CatScriptProgram.class), "<init>", "()V");
+            constructor.addMethodInstruction(Opcodes.INVOKESPECIAL, superName, "<init>", "()V");
             constructor.addInstruction(Opcodes.RETURN);
         }
     }
 
+    private void makeMain() {
+        try (MethodGenerator main = makeMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "main", "([Ljava/lang/String;)V")) {
+            main.addTypeInstruction(Opcodes.NEW, internalClassName);
+            main.addInstruction(Opcodes.DUP);
+            main.addMethodInstruction(Opcodes.INVOKESPECIAL, internalClassName, "<init>", "()V");
+            main.addMethodInstruction(Opcodes.INVOKESTATIC, internalNameFor(StandaloneProgram.class), "run",
+                    "(L" + internalNameFor(StandaloneProgram.class) + ";)V");
+            main.addInstruction(Opcodes.RETURN);
+        }
+    }
+
     public static String internalNameFor(Class clazz) {
         final String name = clazz.getName();
         return name.replace(".", "/");
@@ -74,32 +365,112 @@ public class ByteCodeGenerator {
         currentMethod = methodStack.pop();
     }
 
+    // called where a function is defined, function classes already hold split out functions
+    public void addFunction(FunctionDefinitionStatement function) {
+        if (functionOwner(function.getMethodName()) == null) {
+            function.compileFunction(this);
+        }
+    }
+
+    // starts a function method.  Split out functions are static and take the program as their
+    // first argument, so the program is in slot 0 either way.
+    public void pushFunction(String name, String descriptor) {
+        if (functionOwner(name) == null) {
+            pushMethod(Opcodes.ACC_PUBLIC, memberPrefix + name, descriptor);
+        } else {
+            pushMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, memberPrefix + name, staticDescriptor(descriptor));
+        }
+    }
+
+    // calls a function, the program and the arguments are on the stack.  Calls go through an
+    // invokedynamic site that FunctionLinker first binds to the generated method, so that
+    // redefineFunction() can swap the function without touching its callers.
+    public void addFunctionCall(String name, String descriptor) {
+        String owner = functionOwner(name);
+        String methodName = memberPrefix + name;
+        Handle implementation = owner == null
+                ? new Handle(Opcodes.H_INVOKEVIRTUAL, internalClassName, methodName, descriptor, false)
+                : new Handle(Opcodes.H_INVOKESTATIC, owner, methodName, staticDescriptor(descriptor), false);
+        currentMethod.addInvokeDynamicInstruction(methodName, staticDescriptor(descriptor), LINK_FUNCTION, implementation);
+    }
+
+    // compiles function again, from an edited or re-optimized version of the program with the
+    // same globals and function signatures, and points every call of it in the class that
+    // compileToClass() returned at the new code.  The new method is defined next to the
+    // program class, so it reaches the globals and other functions just like the original.
+    public void redefineFunction(FunctionDefinitionStatement function) {
+        if (programClass == null) {
+            throw new IllegalStateException("No program class to redefine " + function.getName() + " in");
+        }
+        String className = internalClassName + "$Redefined" + redefinitionInteger.incrementAndGet();
+        ByteCodeGenerator generator = new ByteCodeGenerator(this);
+        generator.functionOwners = functionOwners == null ? new HashMap<>() : new HashMap<>(functionOwners);
+        generator.functionOwners.put(function.getMethodName(), className);
+        byte[] bytes = generator.generateFunctionClass(className, List.of(function)).classBytes;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(programClass, MethodHandles.lookup());
+            Class<?> redefined = lookup.defineClass(bytes);
+            MethodType type = MethodType.fromMethodDescriptorString(staticDescriptor(function.getDescriptor()),
+                    programClass.getClassLoader());
+            FunctionLinker.redefine(programClass, function.getMethodName(),
+                    lookup.findStatic(redefined, function.getMethodName(), type));
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String functionOwner(String name) {
+        return functionOwners == null ? null : functionOwners.get(name);
+    }
+
+    private String staticDescriptor(String descriptor) {
+        return "(L" + internalClassName + ";" + descriptor.substring(1);
+    }
+
     private MethodGenerator makeMethod(int access, String name, String descriptor) {
-        MethodVisitor method = classWriter.visitMethod(access, name, descriptor, null, null);
+        MethodVisitor method = classNode.visitMethod(access, name, descriptor, null, null);
         method.visitCode();
         return new MethodGenerator(method);
     }
 
-    private void printClassASM(byte[] classBytes) {
+    private void inspectClass(String className, byte[] classBytes) {
         StringWriter writer = new StringWriter();
-        var visitor = new TraceClassVisitor(new PrintWriter(writer));
-        CheckClassAdapter checkAdapter = new CheckClassAdapter(visitor);
-        ClassReader reader = new ClassReader(classBytes);
-        reader.accept(checkAdapter, 0);
-        String decompiledTransformedClass = writer.getBuffer().toString();
-        System.out.println(" JVM Bytecode ===================================\n");
-        System.out.println(decompiledTransformedClass);
-        System.out.println("\n ================================================");
+        boolean text = options.isDisassemble() || options.getDumpDirectory() != null;
+        ClassVisitor visitor = text ? new TraceClassVisitor(new PrintWriter(writer)) : new ClassWriter(0);
+        if (options.isVerify()) {
+            visitor = new CheckClassAdapter(visitor);
+        }
+        new ClassReader(classBytes).accept(visitor, 0);
+        if (text) {
+            disassembly = (disassembly == null ? "" : disassembly) + writer;
+        }
+        if (options.getDumpDirectory() != null) {
+            String simpleName = className.substring(className.lastIndexOf('/') + 1);
+            try {
+                Files.createDirectories(options.getDumpDirectory());
+                Files.write(options.getDumpDirectory().resolve(simpleName + ".class"), classBytes);
+                Files.writeString(options.getDumpDirectory().resolve(simpleName + ".txt"), writer.toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
     }
 
-    private CatScriptProgram loadClass(String dotClassName, byte[] classBytes) {
-        try {
-            CLASS_LOADER.defineClass(dotClassName, classBytes);
-            Class<?> clazz = CLASS_LOADER.loadClass(dotClassName);
-            return (CatScriptProgram) clazz.getConstructor().newInstance();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    // a null name is taken from the class bytes
+    private static Class<? extends CatScriptProgram> defineClass(String dotClassName, byte[] classBytes) {
+        DynamicClassLoader classLoader = new DynamicClassLoader(ByteCodeGenerator.class.getClassLoader(), Map.of());
+        return classLoader.defineClass(dotClassName, classBytes).asSubclass(CatScriptProgram.class);
+    }
+
+    // the program class is defined right away, the function classes in the same loader
+    // when the program first uses them
+    private static Class<? extends CatScriptProgram> defineClasses(Map<String, byte[]> classes) {
+        Map<String, byte[]> byName = new HashMap<>();
+        classes.forEach((name, bytes) -> byName.put(name.replace('/', '.'), bytes));
+        DynamicClassLoader classLoader = new DynamicClassLoader(ByteCodeGenerator.class.getClassLoader(), byName);
+        Map.Entry<String, byte[]> programClass = classes.entrySet().iterator().next();
+        return classLoader.defineClass(programClass.getKey().replace('/', '.'), programClass.getValue())
+                .asSubclass(CatScriptProgram.class);
     }
 
     public Integer nextLocalStorageSlot() {
@@ -114,17 +485,36 @@ public class ByteCodeGenerator {
         return currentMethod.resolveLocalStorageSlotFor(name);
     }
 
+    public void pushScope() {
+        currentMethod.pushScope();
+    }
+
+    public void popScope() {
+        currentMethod.popScope();
+    }
+
     public String getProgramInternalName() {
         return internalClassName;
     }
 
     static class DynamicClassLoader extends ClassLoader {
-        public void defineClass(String name, byte[] bytes) {
-            defineClass(name, bytes, 0, bytes.length);
+        private final Map<String, byte[]> classes;
+
+        DynamicClassLoader(ClassLoader parent, Map<String, byte[]> classes) {
+            super(parent);
+            this.classes = classes;
+        }
+
+        public Class<?> defineClass(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
         }
         @Override
         public Class<?> findClass(String name) throws ClassNotFoundException {
-            return super.findClass(name);
+            byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                return super.findClass(name);
+            }
+            return defineClass(name, bytes);
         }
     }
 
@@ -140,6 +530,10 @@ public class ByteCodeGenerator {
         currentMethod.addVarInstruction(opcode, var);
     }
 
+    public void addIincInstruction(int var, int increment) {
+        currentMethod.addIincInstruction(var, increment);
+    }
+
     public void addTypeInstruction(int opcode, String type) {
         currentMethod.addTypeInstruction(opcode, type);
     }
@@ -148,6 +542,11 @@ public class ByteCodeGenerator {
         currentMethod.addFieldInstruction(opcode, className, name, descriptor);
     }
 
+    // reads or writes the field of a global variable, the program is on the stack
+    public void addGlobalFieldInstruction(int opcode, String name, String descriptor) {
+        currentMethod.addFieldInstruction(opcode, internalClassName, memberPrefix + name, descriptor);
+    }
+
     public void addMethodInstruction(int opcode, String owner, String name, String descriptor) {
         currentMethod.addMethodInstruction(opcode, owner, name, descriptor);
     }
@@ -160,12 +559,21 @@ public class ByteCodeGenerator {
         currentMethod.addLabel(label);
     }
 
+    // concatenates the values described by argumentDescriptors into a String through an
+    // invokedynamic StringConcatFactory call site.  In the recipe \u0001 marks an argument,
+    // any other text is a constant.
+    public void addStringConcatenation(String recipe, String argumentDescriptors) {
+        currentMethod.addInvokeDynamicInstruction("makeConcatWithConstants",
+                "(" + argumentDescriptors + ")Ljava/lang/String;", MAKE_CONCAT_WITH_CONSTANTS, recipe);
+    }
+
     public void pushConstantOntoStack(Object value) {
         currentMethod.pushConstantOntoStack(value);
     }
 
+    // package private, so that function classes in the same loader can reach globals
     public void addField(String name, String descriptor) {
-        FieldVisitor fieldVisitor = classWriter.visitField(Opcodes.ACC_PRIVATE, name, descriptor, null, null);
+        FieldVisitor fieldVisitor = classNode.visitField(0, memberPrefix + name, descriptor, null, null);
         fieldVisitor.visitEnd();
     }
 }
@@ -0,0 +1,119 @@
+package edu.montana.csci.csci468.bytecode;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+
+// Options for the bytecode generator.  The debugging aids (verification, disassembly and
+// dumps) are off by default, they re-read the generated class and are far more expensive
+// than generating it.
+public class CompileOptions {
+
+    public static final String DUMP_DIRECTORY_PROPERTY = "catscript.bytecode.dump";
+    public static final String VERIFY_PROPERTY = "catscript.bytecode.verify";
+    public static final String CACHE_DIRECTORY_PROPERTY = "catscript.bytecode.cache";
+    public static final String CACHE_MAX_BYTES_PROPERTY = "catscript.bytecode.cache.maxBytes";
+    public static final int DEFAULT_FUNCTIONS_PER_CLASS = 16;
+
+    private boolean peephole = true;
+    private boolean verify;
+    private boolean disassemble;
+    private Path dumpDirectory;
+    private DiskClassCache diskCache;
+    private ExecutorService codegenExecutor;
+    private int functionsPerClass = DEFAULT_FUNCTIONS_PER_CLASS;
+
+    public static CompileOptions defaults() {
+        return new CompileOptions();
+    }
+
+    // -Dcatscript.bytecode.verify=true, -Dcatscript.bytecode.dump=<dir> and
+    // -Dcatscript.bytecode.cache=<dir> (with an optional -Dcatscript.bytecode.cache.maxBytes=<n>)
+    public static CompileOptions fromSystemProperties() {
+        CompileOptions options = new CompileOptions();
+        options.setVerify(Boolean.getBoolean(VERIFY_PROPERTY));
+        String dumpDirectory = System.getProperty(DUMP_DIRECTORY_PROPERTY);
+        if (dumpDirectory != null && !dumpDirectory.isBlank()) {
+            options.setDumpDirectory(Paths.get(dumpDirectory));
+        }
+        String cacheDirectory = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+        if (cacheDirectory != null && !cacheDirectory.isBlank()) {
+            long maxBytes = Long.getLong(CACHE_MAX_BYTES_PROPERTY, DiskClassCache.DEFAULT_MAX_BYTES);
+            options.setDiskCache(new DiskClassCache(Paths.get(cacheDirectory), maxBytes));
+        }
+        return options;
+    }
+
+    public boolean isPeephole() {
+        return peephole;
+    }
+
+    // runs the PeepholeOptimizer over the generated methods, on by default
+    public CompileOptions setPeephole(boolean peephole) {
+        this.peephole = peephole;
+        return this;
+    }
+
+    public boolean isVerify() {
+        return verify;
+    }
+
+    // runs the generated class through ASM's CheckClassAdapter
+    public CompileOptions setVerify(boolean verify) {
+        this.verify = verify;
+        return this;
+    }
+
+    public boolean isDisassemble() {
+        return disassemble;
+    }
+
+    // keeps a textual disassembly, see ByteCodeGenerator.getDisassembly()
+    public CompileOptions setDisassemble(boolean disassemble) {
+        this.disassemble = disassemble;
+        return this;
+    }
+
+    public Path getDumpDirectory() {
+        return dumpDirectory;
+    }
+
+    // writes <class>.class and <class>.txt for every compiled program into the directory
+    public CompileOptions setDumpDirectory(Path dumpDirectory) {
+        this.dumpDirectory = dumpDirectory;
+        return this;
+    }
+
+    public DiskClassCache getDiskCache() {
+        return diskCache;
+    }
+
+    // consulted by ByteCodeGenerator.compileSource() before the source is even tokenized
+    public CompileOptions setDiskCache(DiskClassCache diskCache) {
+        this.diskCache = diskCache;
+        return this;
+    }
+
+    public ExecutorService getCodegenExecutor() {
+        return codegenExecutor;
+    }
+
+    // with an executor, programs with more than functionsPerClass functions have their
+    // functions generated into separate classes in parallel, see ByteCodeGenerator
+    public CompileOptions setCodegenExecutor(ExecutorService codegenExecutor) {
+        this.codegenExecutor = codegenExecutor;
+        return this;
+    }
+
+    public int getFunctionsPerClass() {
+        return functionsPerClass;
+    }
+
+    public CompileOptions setFunctionsPerClass(int functionsPerClass) {
+        if (functionsPerClass < 1) {
+            throw new IllegalArgumentException("functionsPerClass must be positive: " + functionsPerClass);
+        }
+        this.functionsPerClass = functionsPerClass;
+        return this;
+    }
+}
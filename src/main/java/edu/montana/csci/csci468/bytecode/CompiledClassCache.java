@@ -0,0 +1,175 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+// Bounded, least recently used cache of compiled program classes keyed by a hash of the
+// source (and anything else that changes the generated code, like the optimization level).
+// Evicted classes are only referenced by their own class loader, so they can be unloaded.
+//
+// Misses are single flight: while a key is being compiled, everyone else asking for it waits for
+// that compilation instead of starting their own.
+public class CompiledClassCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Class<? extends CatScriptProgram>> classes;
+    // compilations under way, removed once they finish, successfully or not
+    private final Map<String, CompletableFuture<Class<? extends CatScriptProgram>>> compiling = new HashMap<>();
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long coalesced;
+
+    public CompiledClassCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public CompiledClassCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.classes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Class<? extends CatScriptProgram>> eldest) {
+                if (size() > CompiledClassCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static String keyFor(String source, String variant) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(variant.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return toHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    public synchronized Class<? extends CatScriptProgram> get(String key) {
+        Class<? extends CatScriptProgram> programClass = classes.get(key);
+        if (programClass == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return programClass;
+    }
+
+    public synchronized void put(String key, Class<? extends CatScriptProgram> programClass) {
+        classes.put(key, programClass);
+    }
+
+    // the compiler runs outside the lock, on the thread of the first miss.  Concurrent misses on
+    // the same key wait for its class, or get its exception, failures are not cached.
+    public Class<? extends CatScriptProgram> computeIfAbsent(String key, Supplier<Class<? extends CatScriptProgram>> compiler) {
+        CompletableFuture<Class<? extends CatScriptProgram>> compilation;
+        synchronized (this) {
+            Class<? extends CatScriptProgram> programClass = classes.get(key);
+            if (programClass != null) {
+                hits++;
+                return programClass;
+            }
+            compilation = compiling.get(key);
+            if (compilation != null) {
+                coalesced++;
+            } else {
+                misses++;
+                compiling.put(key, new CompletableFuture<>());
+            }
+        }
+        if (compilation != null) {
+            return join(compilation);
+        }
+        return compile(key, compiler);
+    }
+
+    private Class<? extends CatScriptProgram> compile(String key, Supplier<Class<? extends CatScriptProgram>> compiler) {
+        Class<? extends CatScriptProgram> programClass;
+        try {
+            programClass = compiler.get();
+        } catch (RuntimeException | Error e) {
+            finish(key).completeExceptionally(e);
+            throw e;
+        }
+        CompletableFuture<Class<? extends CatScriptProgram>> compilation;
+        synchronized (this) {
+            classes.put(key, programClass);
+            compilation = finish(key);
+        }
+        compilation.complete(programClass);
+        return programClass;
+    }
+
+    private synchronized CompletableFuture<Class<? extends CatScriptProgram>> finish(String key) {
+        return compiling.remove(key);
+    }
+
+    // rethrows what the compiling thread threw, a ParseErrorException stays one
+    private static Class<? extends CatScriptProgram> join(CompletableFuture<Class<? extends CatScriptProgram>> compilation) {
+        try {
+            return compilation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public synchronized int size() {
+        return classes.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    // misses that waited for a compilation already under way
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "size=" + classes.size() + "/" + maxEntries + " hits=" + hits +
+                " misses=" + misses + " coalesced=" + coalesced + " evictions=" + evictions;
+    }
+}
@@ -0,0 +1,77 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.eval.OutputSink;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// The immutable, thread safe half of a compiled program: its class and a handle on its
+// constructor.  The other half is the execution context, an instance of the class holding the
+// globals and the output of one run.  Every run() gets a fresh one, so a CompiledProgram can be
+// run any number of times, from any number of threads, without compiling it again.
+public class CompiledProgram {
+
+    // one per program class, stored on the class so it goes away when the class is unloaded
+    private static final ClassValue<CompiledProgram> PROGRAMS = new ClassValue<>() {
+        @Override
+        protected CompiledProgram computeValue(Class<?> programClass) {
+            return new CompiledProgram(programClass.asSubclass(CatScriptProgram.class));
+        }
+    };
+
+    private final Class<? extends CatScriptProgram> programClass;
+    private final MethodHandle constructor;
+
+    private CompiledProgram(Class<? extends CatScriptProgram> programClass) {
+        this.programClass = programClass;
+        try {
+            this.constructor = MethodHandles.publicLookup()
+                    .findConstructor(programClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(CatScriptProgram.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(programClass + " is not a compiled program", e);
+        }
+    }
+
+    public static CompiledProgram of(Class<? extends CatScriptProgram> programClass) {
+        return PROGRAMS.get(programClass);
+    }
+
+    // a fresh execution context, with its own globals and output
+    public CatScriptProgram newExecution() {
+        try {
+            return (CatScriptProgram) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // runs the program in a fresh execution context and returns its output
+    public String run() {
+        OutputSink output = OutputSink.buffer();
+        run(output);
+        return output.getOutput();
+    }
+
+    // runs the program in a fresh execution context, streaming its output to the sink.  The sink
+    // is flushed only when the run succeeds, what a failed run printed is left to the caller
+    public void run(OutputSink output) {
+        CatScriptProgram execution = newExecution();
+        execution.setOutput(output);
+        execution.execute();
+        output.flush();
+    }
+
+    public Class<? extends CatScriptProgram> getProgramClass() {
+        return programClass;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledProgram[" + programClass.getName() + "]";
+    }
+}
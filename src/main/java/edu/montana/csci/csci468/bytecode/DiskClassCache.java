@@ -0,0 +1,253 @@
+package edu.montana.csci.csci468.bytecode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Content addressed cache of compiled program classes on disk, shared by every process that
+// points at the same directory.  Entries are <key>.class files, the key hashes the source, the
+// compile variant, the compiler's BUILD and the classfile version, so a file never has to be
+// invalidated, only evicted.
+//
+// Several JVMs may use a directory at once: entries are written to a temporary file and
+// renamed into place, so readers see a whole class or nothing, and a file disappearing under
+// a reader (another process evicting it) is just a miss.
+public class DiskClassCache {
+
+    // bump whenever the generated code changes, so older entries are never loaded again.  Only
+    // matters when BUILD can't be computed, BUILD changes with every rebuild of the compiler.
+    public static final String COMPILER_VERSION = "5";
+    // a hash of the compiler's own class files (the jar, or the classes directory during
+    // development), so classes generated by an older build of the compiler are never loaded
+    public static final String BUILD = buildOf(DiskClassCache.class);
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final String SUFFIX = ".class";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    // temporary files older than this were left behind by a process that died mid write
+    private static final long STALE_TEMPORARY_MILLIS = 60_000;
+
+    private final Path directory;
+    private final long maxBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public DiskClassCache(Path directory) {
+        this(directory, DEFAULT_MAX_BYTES);
+    }
+
+    public DiskClassCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    public static String keyFor(String source, String variant) {
+        return CompiledClassCache.keyFor(source, variant + "/" + COMPILER_VERSION + "/" + BUILD + "/" +
+                ByteCodeGenerator.classfileVersion());
+    }
+
+    private static String buildOf(Class<?> compilerClass) {
+        try {
+            CodeSource codeSource = compilerClass.getProtectionDomain().getCodeSource();
+            if (codeSource == null || codeSource.getLocation() == null) {
+                return "unknown";
+            }
+            return fingerprint(Paths.get(codeSource.getLocation().toURI()));
+        } catch (URISyntaxException | IOException | RuntimeException e) {
+            return "unknown";
+        }
+    }
+
+    // a hash of a jar, or of every class file (and its path) under a directory
+    static String fingerprint(Path location) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        if (Files.isDirectory(location)) {
+            List<Path> classFiles;
+            try (Stream<Path> files = Files.walk(location)) {
+                classFiles = files.filter(file -> file.toString().endsWith(SUFFIX)).sorted().collect(Collectors.toList());
+            }
+            for (Path classFile : classFiles) {
+                digest.update(location.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(classFile));
+            }
+        } else {
+            digest.update(Files.readAllBytes(location));
+        }
+        return CompiledClassCache.toHex(digest.digest()).substring(0, 16);
+    }
+
+    // the stored class bytes or null.  Hits refresh the modification time, which is what
+    // eviction orders by.
+    public byte[] read(String key) {
+        Path file = fileFor(key);
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            if (!isClassFile(bytes)) {
+                Files.deleteIfExists(file);
+                countMiss();
+                return null;
+            }
+            touch(file);
+            countHit();
+            return bytes;
+        } catch (NoSuchFileException e) {
+            countMiss();
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void write(String key, byte[] classBytes) {
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, key, TEMPORARY_SUFFIX);
+            try {
+                Files.write(temporary, classBytes);
+                // entries are content addressed, whoever renames last writes the same bytes
+                Files.move(temporary, fileFor(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            evict();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // drops a stored entry, for bytes the JVM refused to load
+    public void remove(String key) {
+        try {
+            Files.deleteIfExists(fileFor(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // removes the least recently used entries until the directory fits in maxBytes
+    private void evict() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long totalBytes = 0;
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    long modified = attributes.lastModifiedTime().toMillis();
+                    if (name.endsWith(SUFFIX)) {
+                        entries.add(new Entry(file, attributes.size(), modified));
+                        totalBytes += attributes.size();
+                    } else if (name.endsWith(TEMPORARY_SUFFIX) && now - modified > STALE_TEMPORARY_MILLIS) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NoSuchFileException e) {
+                    // removed by another process
+                }
+            }
+        }
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.modified));
+        for (Entry entry : entries) {
+            if (totalBytes <= maxBytes) {
+                break;
+            }
+            if (Files.deleteIfExists(entry.file)) {
+                countEviction();
+            }
+            totalBytes -= entry.size;
+        }
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private static boolean isClassFile(byte[] bytes) {
+        return bytes.length > 4 && (bytes[0] & 0xFF) == 0xCA && (bytes[1] & 0xFF) == 0xFE
+                && (bytes[2] & 0xFF) == 0xBA && (bytes[3] & 0xFF) == 0xBE;
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // only affects the eviction order
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private synchronized void countHit() {
+        hits++;
+    }
+
+    private synchronized void countMiss() {
+        misses++;
+    }
+
+    private synchronized void countEviction() {
+        evictions++;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "directory=" + directory + " maxBytes=" + maxBytes + " hits=" + hits +
+                " misses=" + misses + " evictions=" + evictions;
+    }
+
+    private static class Entry {
+        private final Path file;
+        private final long size;
+        private final long modified;
+
+        Entry(Path file, long size, long modified) {
+            this.file = file;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package edu.montana.csci.csci468.bytecode;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Bootstrap of the invokedynamic call sites of CatScript function calls.  Every call of a
+// function in a program class shares one MutableCallSite, so redefine() swaps in a new
+// implementation for all callers at once.  HotSpot treats the target of a MutableCallSite as
+// a constant and inlines through it, deoptimizing the callers when the target changes.
+//
+// Copied into ahead-of-time compiled jars, so it must not use anything outside of java.base.
+public class FunctionLinker {
+
+    // function method name -> call site, per program class.  Stored on the class itself, so
+    // the sites go away when the program class is unloaded.
+    private static final CallSites CALL_SITES = new CallSites();
+
+    // type is (program, arguments...) and implementation the function as generated
+    public static CallSite bootstrap(MethodHandles.Lookup caller, String name, MethodType type, MethodHandle implementation) {
+        MutableCallSite callSite = callSiteFor(type.parameterType(0), name, implementation.asType(type));
+        if (!callSite.type().equals(type)) {
+            throw new IllegalStateException("Function " + name + " was linked as " + callSite.type() + ", not " + type);
+        }
+        return callSite;
+    }
+
+    // points every call of the function, linked or not yet linked, at implementation
+    public static void redefine(Class<?> programClass, String name, MethodHandle implementation) {
+        MutableCallSite callSite = callSiteFor(programClass, name, implementation);
+        if (!callSite.type().equals(implementation.type())) {
+            throw new IllegalArgumentException("Function " + name + " has the type " + callSite.type() +
+                    ", not " + implementation.type());
+        }
+        callSite.setTarget(implementation);
+        MutableCallSite.syncAll(new MutableCallSite[]{callSite});
+    }
+
+    private static MutableCallSite callSiteFor(Class<?> programClass, String name, MethodHandle implementation) {
+        return CALL_SITES.get(programClass).computeIfAbsent(name, key -> new MutableCallSite(implementation));
+    }
+
+    static class CallSites extends ClassValue<Map<String, MutableCallSite>> {
+        @Override
+        protected Map<String, MutableCallSite> computeValue(Class<?> programClass) {
+            return new ConcurrentHashMap<>();
+        }
+    }
+}
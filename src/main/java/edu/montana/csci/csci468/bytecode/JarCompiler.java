@@ -0,0 +1,136 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.eval.IntList;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.optimizer.PassManager;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+// Ahead-of-time compilation: writes a program and its small runtime into a jar
+// that runs with a plain "java -jar", without the tokenizer, parser or ASM on the class path.
+//
+//   java -cp <compiler> edu.montana.csci.csci468.bytecode.JarCompiler script.cat script.jar [-O2]
+public class JarCompiler {
+
+    // fixed entry times keep the jar bytes a function of the script alone
+    private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(1980, 1, 1, 0, 0);
+    // everything generated code may refer to outside of java.base
+    private static final List<Class<?>> RUNTIME_CLASSES = List.of(StandaloneProgram.class,
+            FunctionLinker.class, FunctionLinker.CallSites.class, IntList.class);
+
+    private final CompileOptions options;
+
+    public JarCompiler() {
+        this(CompileOptions.defaults());
+    }
+
+    public JarCompiler(CompileOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: JarCompiler <script> <jar> [-O0|-O1|-O2]");
+            System.exit(1);
+        }
+        Path script = Paths.get(args[0]);
+        OptimizationLevel level = OptimizationLevel.parse(args.length > 2 ? args[2] : null);
+        CatScriptProgram program = new CatScriptParser().parse(Files.readString(script));
+        program.verify();
+        program = new PassManager(level).optimize(program);
+        new JarCompiler(CompileOptions.fromSystemProperties()).writeJar(program, mainClassNameFor(script), Paths.get(args[1]));
+    }
+
+    // script names like "hello-world.cat" become "HelloWorld"
+    public static String mainClassNameFor(Path script) {
+        String fileName = script.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        if (extension > 0) {
+            fileName = fileName.substring(0, extension);
+        }
+        StringBuilder name = new StringBuilder();
+        boolean upper = true;
+        for (char c : fileName.toCharArray()) {
+            if (Character.isJavaIdentifierPart(c) && c != '$') {
+                name.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            } else {
+                upper = true;
+            }
+        }
+        if (name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            name.insert(0, "CatScript");
+        }
+        return name.toString();
+    }
+
+    // the verified and optimized program is compiled into mainClassName, the jar is written
+    // next to its final location first so that it never appears half written
+    public void writeJar(CatScriptProgram program, String mainClassName, Path jar) throws IOException {
+        ByteCodeGenerator generator = new ByteCodeGenerator(program, options);
+        generator.compileStandalone(mainClassName);
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, mainClassName);
+
+        Path directory = jar.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, jar.getFileName().toString(), ".tmp");
+        try {
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(temporary))) {
+                out.putNextEntry(entry("META-INF/MANIFEST.MF"));
+                manifest.write(out);
+                out.closeEntry();
+                for (Map.Entry<String, byte[]> generatedClass : generator.getClasses().entrySet()) {
+                    writeEntry(out, generatedClass.getKey() + ".class", generatedClass.getValue());
+                }
+                for (Class<?> runtimeClass : RUNTIME_CLASSES) {
+                    writeEntry(out, classFileFor(runtimeClass), runtimeClassBytes(runtimeClass));
+                }
+            }
+            Files.move(temporary, jar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeEntry(JarOutputStream out, String name, byte[] bytes) throws IOException {
+        out.putNextEntry(entry(name));
+        out.write(bytes);
+        out.closeEntry();
+    }
+
+    private static JarEntry entry(String name) {
+        JarEntry entry = new JarEntry(name);
+        entry.setTimeLocal(ENTRY_TIME);
+        return entry;
+    }
+
+    private static String classFileFor(Class<?> clazz) {
+        return ByteCodeGenerator.internalNameFor(clazz) + ".class";
+    }
+
+    private static byte[] runtimeClassBytes(Class<?> clazz) throws IOException {
+        try (InputStream in = clazz.getClassLoader().getResourceAsStream(classFileFor(clazz))) {
+            if (in == null) {
+                throw new IOException("Could not find the class file of " + clazz.getName());
+            }
+            return in.readAllBytes();
+        }
+    }
+}
@@ -2,18 +2,28 @@ package edu.montana.csci.csci468.bytecode;
 
 import org.objectweb.asm.*;
 
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class MethodGenerator implements AutoCloseable {
 
-    private AtomicInteger localStorageSlot = new AtomicInteger();
+    // slot 0 holds this
+    private int nextFreeSlot = 1;
     Map<String, Integer> localStorageMap = new HashMap<>();
+    private final Deque<Scope> scopes = new LinkedList<>();
     private final MethodVisitor delegate;
 
     public Integer nextLocalStorageSlot() {
-        return localStorageSlot.incrementAndGet();
+        return nextLocalStorageSlot(1);
+    }
+
+    // long and double values take two slots
+    public Integer nextLocalStorageSlot(int width) {
+        int slot = nextFreeSlot;
+        nextFreeSlot += width;
+        return slot;
     }
 
     public Integer createLocalStorageSlotFor(String name){
@@ -26,6 +36,30 @@ public class MethodGenerator implements AutoCloseable {
         return localStorageMap.get(name);
     }
 
+    // Slots are allocated like a stack: everything allocated inside a block is freed when
+    // the block ends and reused by the next one, so sibling blocks share their slots.
+    // Names created inside a block stop resolving at the same time, so a later global of
+    // the same name is not mistaken for a stale local.
+    public void pushScope() {
+        scopes.push(new Scope(new HashMap<>(localStorageMap), nextFreeSlot));
+    }
+
+    public void popScope() {
+        Scope scope = scopes.pop();
+        localStorageMap = scope.names;
+        nextFreeSlot = scope.nextFreeSlot;
+    }
+
+    private static class Scope {
+        private final Map<String, Integer> names;
+        private final int nextFreeSlot;
+
+        Scope(Map<String, Integer> names, int nextFreeSlot) {
+            this.names = names;
+            this.nextFreeSlot = nextFreeSlot;
+        }
+    }
+
     public MethodGenerator(MethodVisitor delgate) {
         this.delegate = delgate;
     }
@@ -49,6 +83,10 @@ public class MethodGenerator implements AutoCloseable {
         delegate.visitVarInsn(opcode, var);
     }
 
+    public void addIincInstruction(int var, int increment) {
+        delegate.visitIincInsn(var, increment);
+    }
+
     public void addTypeInstruction(int opcode, String type) {
         delegate.visitTypeInsn(opcode, type);
     }
@@ -61,10 +99,18 @@ public class MethodGenerator implements AutoCloseable {
         delegate.visitMethodInsn(opcode, owner, name, descriptor);
     }
 
+    public void addInvokeDynamicInstruction(String name, String descriptor, Handle bootstrapMethod, Object... bootstrapArguments) {
+        delegate.visitInvokeDynamicInsn(name, descriptor, bootstrapMethod, bootstrapArguments);
+    }
+
     public void addJumpInstruction(int opcode, Label label) {
         delegate.visitJumpInsn(opcode, label);
     }
 
+    public void addTableSwitchInstruction(int min, int max, Label defaultLabel, Label... labels) {
+        delegate.visitTableSwitchInsn(min, max, defaultLabel, labels);
+    }
+
     public void addLabel(Label label) {
         delegate.visitLabel(label);
     }
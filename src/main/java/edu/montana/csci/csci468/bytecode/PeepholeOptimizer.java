@@ -0,0 +1,352 @@
+package edu.montana.csci.csci468.bytecode;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Cleans up the instruction sequences the AST emitters leave behind, on the tree form of
+// a generated class before it is written out:
+//
+//  - Integer.valueOf/intValue and Boolean.valueOf/booleanValue round trips
+//  - stores to slots that are never read, and a store immediately read back by the only
+//    load of its slot
+//  - pushes that are immediately popped
+//  - branches on constants, jumps to jumps and jumps to the next instruction
+//  - code that can no longer be reached
+//
+// Rules only look at directly adjacent instructions, a label in between (a possible jump
+// target) stops them.
+public class PeepholeOptimizer implements Opcodes {
+
+    private int removedInstructions;
+
+    public void optimize(ClassNode classNode) {
+        for (MethodNode method : classNode.methods) {
+            optimize(method);
+        }
+    }
+
+    public void optimize(MethodNode method) {
+        InsnList instructions = method.instructions;
+        int before = countInstructions(instructions);
+        boolean changed;
+        do {
+            changed = removeBoxUnboxPairs(instructions);
+            changed |= foldConstantBranches(instructions);
+            changed |= threadJumps(instructions);
+            changed |= removeStoreLoadPairs(instructions);
+            changed |= removeDeadStores(instructions);
+            changed |= removePushPopPairs(instructions);
+            changed |= removeUnreachableCode(method);
+        } while (changed);
+        removedInstructions += before - countInstructions(instructions);
+    }
+
+    public int getRemovedInstructions() {
+        return removedInstructions;
+    }
+
+    //============================================================
+    //  Rules
+    //============================================================
+
+    private boolean removeBoxUnboxPairs(InsnList instructions) {
+        boolean changed = false;
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; ) {
+            AbstractInsnNode next = insn.getNext();
+            String boxType = boxedType(insn);
+            if (boxType != null) {
+                AbstractInsnNode cast = null;
+                AbstractInsnNode unbox = next;
+                if (unbox instanceof TypeInsnNode && unbox.getOpcode() == CHECKCAST &&
+                        ((TypeInsnNode) unbox).desc.equals(boxType)) {
+                    cast = unbox;
+                    unbox = unbox.getNext();
+                }
+                if (isUnbox(unbox, boxType)) {
+                    next = unbox.getNext();
+                    instructions.remove(insn);
+                    if (cast != null) {
+                        instructions.remove(cast);
+                    }
+                    instructions.remove(unbox);
+                    changed = true;
+                }
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    private boolean foldConstantBranches(InsnList instructions) {
+        boolean changed = false;
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; ) {
+            AbstractInsnNode next = insn.getNext();
+            Boolean taken = null;
+            AbstractInsnNode right = insn.getPrevious();
+            AbstractInsnNode left = null;
+            Integer rightValue = intConstant(right);
+            int opcode = insn.getOpcode();
+            if (rightValue != null && opcode >= IFEQ && opcode <= IFLE) {
+                taken = compare(opcode - IFEQ, rightValue, 0);
+            } else if (rightValue != null && opcode >= IF_ICMPEQ && opcode <= IF_ICMPLE) {
+                left = right.getPrevious();
+                Integer leftValue = intConstant(left);
+                if (leftValue != null) {
+                    taken = compare(opcode - IF_ICMPEQ, leftValue, rightValue);
+                }
+            }
+            if (taken != null) {
+                if (taken) {
+                    instructions.set(insn, new JumpInsnNode(GOTO, ((JumpInsnNode) insn).label));
+                } else {
+                    instructions.remove(insn);
+                }
+                instructions.remove(right);
+                if (left != null) {
+                    instructions.remove(left);
+                }
+                changed = true;
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    private boolean threadJumps(InsnList instructions) {
+        boolean changed = false;
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; ) {
+            AbstractInsnNode next = insn.getNext();
+            if (insn instanceof JumpInsnNode) {
+                JumpInsnNode jump = (JumpInsnNode) insn;
+                // follow chains of GOTOs, giving up on cycles
+                for (int hops = 0; hops < 8; hops++) {
+                    AbstractInsnNode target = firstInstructionAt(jump.label);
+                    if (target == null || target.getOpcode() != GOTO || ((JumpInsnNode) target).label == jump.label) {
+                        break;
+                    }
+                    jump.label = ((JumpInsnNode) target).label;
+                    changed = true;
+                }
+                if (jump.getOpcode() == GOTO && firstInstructionAt(jump.label) == firstInstructionAfter(jump)) {
+                    instructions.remove(jump);
+                    changed = true;
+                }
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    private boolean removeStoreLoadPairs(InsnList instructions) {
+        boolean changed = false;
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; ) {
+            AbstractInsnNode next = insn.getNext();
+            if (isStore(insn) && next instanceof VarInsnNode && next.getOpcode() == loadFor(insn.getOpcode())) {
+                int slot = ((VarInsnNode) insn).var;
+                if (((VarInsnNode) next).var == slot && countReads(instructions, slot) == 1) {
+                    AbstractInsnNode after = next.getNext();
+                    instructions.remove(insn);
+                    instructions.remove(next);
+                    insn = after;
+                    changed = true;
+                    continue;
+                }
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    private boolean removeDeadStores(InsnList instructions) {
+        boolean changed = false;
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (isStore(insn) && countReads(instructions, ((VarInsnNode) insn).var) == 0) {
+                boolean wide = insn.getOpcode() == LSTORE || insn.getOpcode() == DSTORE;
+                AbstractInsnNode pop = new InsnNode(wide ? POP2 : POP);
+                instructions.set(insn, pop);
+                insn = pop;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean removePushPopPairs(InsnList instructions) {
+        boolean changed = false;
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; ) {
+            AbstractInsnNode next = insn.getNext();
+            if (next != null && next.getOpcode() == POP && isPureSingleSlotPush(insn)) {
+                AbstractInsnNode after = next.getNext();
+                instructions.remove(insn);
+                instructions.remove(next);
+                insn = after;
+                changed = true;
+                continue;
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    private boolean removeUnreachableCode(MethodNode method) {
+        InsnList instructions = method.instructions;
+        Set<LabelNode> targets = jumpTargets(method);
+        boolean changed = false;
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (!endsFlow(insn)) {
+                continue;
+            }
+            AbstractInsnNode next = insn.getNext();
+            while (next != null && !(next instanceof LabelNode && targets.contains(next))) {
+                AbstractInsnNode following = next.getNext();
+                if (next.getOpcode() >= 0) {
+                    instructions.remove(next);
+                    changed = true;
+                }
+                next = following;
+            }
+        }
+        return changed;
+    }
+
+    //============================================================
+    //  Helpers
+    //============================================================
+
+    private static int countInstructions(InsnList instructions) {
+        int count = 0;
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn.getOpcode() >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String boxedType(AbstractInsnNode insn) {
+        if (insn instanceof MethodInsnNode && insn.getOpcode() == INVOKESTATIC) {
+            MethodInsnNode method = (MethodInsnNode) insn;
+            if (method.name.equals("valueOf") && method.owner.equals("java/lang/Integer") && method.desc.equals("(I)Ljava/lang/Integer;")) {
+                return method.owner;
+            }
+            if (method.name.equals("valueOf") && method.owner.equals("java/lang/Boolean") && method.desc.equals("(Z)Ljava/lang/Boolean;")) {
+                return method.owner;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isUnbox(AbstractInsnNode insn, String boxType) {
+        if (insn instanceof MethodInsnNode && insn.getOpcode() == INVOKEVIRTUAL) {
+            MethodInsnNode method = (MethodInsnNode) insn;
+            return method.owner.equals(boxType) &&
+                    ((method.name.equals("intValue") && method.desc.equals("()I")) ||
+                            (method.name.equals("booleanValue") && method.desc.equals("()Z")));
+        }
+        return false;
+    }
+
+    private static Integer intConstant(AbstractInsnNode insn) {
+        if (insn == null) {
+            return null;
+        }
+        int opcode = insn.getOpcode();
+        if (opcode >= ICONST_M1 && opcode <= ICONST_5) {
+            return opcode - ICONST_0;
+        } else if (opcode == BIPUSH || opcode == SIPUSH) {
+            return ((IntInsnNode) insn).operand;
+        } else if (opcode == LDC && ((LdcInsnNode) insn).cst instanceof Integer) {
+            return (Integer) ((LdcInsnNode) insn).cst;
+        }
+        return null;
+    }
+
+    // condition is the offset of the opcode from IFEQ or IF_ICMPEQ: eq, ne, lt, ge, gt, le
+    private static boolean compare(int condition, int left, int right) {
+        switch (condition) {
+            case 0: return left == right;
+            case 1: return left != right;
+            case 2: return left < right;
+            case 3: return left >= right;
+            case 4: return left > right;
+            default: return left <= right;
+        }
+    }
+
+    private static AbstractInsnNode firstInstructionAt(LabelNode label) {
+        AbstractInsnNode insn = label;
+        while (insn != null && insn.getOpcode() < 0) {
+            insn = insn.getNext();
+        }
+        return insn;
+    }
+
+    private static AbstractInsnNode firstInstructionAfter(AbstractInsnNode node) {
+        AbstractInsnNode insn = node.getNext();
+        while (insn != null && insn.getOpcode() < 0) {
+            insn = insn.getNext();
+        }
+        return insn;
+    }
+
+    private static boolean isStore(AbstractInsnNode insn) {
+        return insn instanceof VarInsnNode && insn.getOpcode() >= ISTORE && insn.getOpcode() <= ASTORE;
+    }
+
+    private static int loadFor(int storeOpcode) {
+        return storeOpcode - ISTORE + ILOAD;
+    }
+
+    private static int countReads(InsnList instructions, int slot) {
+        int reads = 0;
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn instanceof VarInsnNode && insn.getOpcode() >= ILOAD && insn.getOpcode() <= ALOAD &&
+                    ((VarInsnNode) insn).var == slot) {
+                reads++;
+            } else if (insn instanceof IincInsnNode && ((IincInsnNode) insn).var == slot) {
+                reads++;
+            }
+        }
+        return reads;
+    }
+
+    private static boolean isPureSingleSlotPush(AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        if (opcode == LDC) {
+            Object constant = ((LdcInsnNode) insn).cst;
+            return !(constant instanceof Long || constant instanceof Double);
+        }
+        return opcode == ACONST_NULL || (opcode >= ICONST_M1 && opcode <= ICONST_5) ||
+                opcode == BIPUSH || opcode == SIPUSH || opcode == ILOAD || opcode == ALOAD ||
+                opcode == FLOAD || opcode == DUP;
+    }
+
+    private static boolean endsFlow(AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        return opcode == GOTO || opcode == ATHROW || (opcode >= IRETURN && opcode <= RETURN);
+    }
+
+    private static Set<LabelNode> jumpTargets(MethodNode method) {
+        Set<LabelNode> targets = new HashSet<>();
+        for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn instanceof JumpInsnNode) {
+                targets.add(((JumpInsnNode) insn).label);
+            } else if (insn instanceof TableSwitchInsnNode) {
+                targets.add(((TableSwitchInsnNode) insn).dflt);
+                targets.addAll(((TableSwitchInsnNode) insn).labels);
+            } else if (insn instanceof LookupSwitchInsnNode) {
+                targets.add(((LookupSwitchInsnNode) insn).dflt);
+                targets.addAll(((LookupSwitchInsnNode) insn).labels);
+            }
+        }
+        for (TryCatchBlockNode tryCatch : method.tryCatchBlocks) {
+            targets.add(tryCatch.start);
+            targets.add(tryCatch.end);
+            targets.add(tryCatch.handler);
+        }
+        return targets;
+    }
+}
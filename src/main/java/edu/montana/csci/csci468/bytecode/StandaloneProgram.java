@@ -0,0 +1,46 @@
+package edu.montana.csci.csci468.bytecode;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+// The base class of ahead-of-time compiled programs, see JarCompiler.  Like the rest of their
+// runtime it is copied into every jar, so it must not use anything outside of java.base.
+public abstract class StandaloneProgram {
+
+    private final Writer out;
+
+    protected StandaloneProgram() {
+        this(new BufferedWriter(new OutputStreamWriter(System.out)));
+    }
+
+    protected StandaloneProgram(Writer out) {
+        this.out = out;
+    }
+
+    public void print(Object v) {
+        try {
+            out.write(String.valueOf(v));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public abstract void execute();
+
+    // called from the generated main method
+    public static void run(StandaloneProgram program) {
+        try {
+            program.execute();
+        } finally {
+            try {
+                program.out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -1,23 +1,47 @@
 package edu.montana.csci.csci468.eval;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 
-// TODO - implement proper scoping
+// Scopes are kept innermost first.  A function call starts a new frame that only sees
+// its own scopes and the globals, matching the lexical scoping the parser validates.
+//
+// Everything an execution changes lives here, never in the tree, so one verified program can
+// be executed by any number of threads at once, each with its own runtime.
 public class CatscriptRuntime {
+    private final OutputSink output;
+    private final Map<String, Object> globalScope = new HashMap<>();
     LinkedList<Map<String, Object>> scopes = new LinkedList<>();
+    private final LinkedList<LinkedList<Map<String, Object>>> frames = new LinkedList<>();
 
     public CatscriptRuntime(){
-        HashMap<String, Object> globalScope = new HashMap<>();
+        this(OutputSink.buffer());
+    }
+
+    public CatscriptRuntime(OutputSink output) {
+        this.output = output;
         scopes.push(globalScope);
     }
 
+    public void print(Object value) {
+        output.print(value);
+    }
+
+    public OutputSink getOutputSink() {
+        return output;
+    }
+
+    public String getOutput() {
+        return output.getOutput();
+    }
+
+    public long getOutputLength() {
+        return output.length();
+    }
+
     public Object getValue(String name) {
-        Iterator<Map<String, Object>> mapIterator = scopes.descendingIterator();
-        while (mapIterator.hasNext()) {
-            Map<String, Object> scope = mapIterator.next();
+        for (Map<String, Object> scope : scopes) {
             if (scope.containsKey(name)) {
                 return scope.get(name);
             }
@@ -32,7 +56,12 @@ public class CatscriptRuntime {
                 return;
             }
         }
-        scopes.peekLast().put(variableName, val);
+        scopes.peekFirst().put(variableName, val);
+    }
+
+    // introduces a variable in the innermost scope, shadowing any outer one
+    public void declareValue(String variableName, Object val) {
+        scopes.peekFirst().put(variableName, val);
     }
 
     public void pushScope() {
@@ -42,4 +71,15 @@ public class CatscriptRuntime {
     public void popScope() {
         scopes.pop();
     }
+
+    public void pushFrame() {
+        frames.push(scopes);
+        scopes = new LinkedList<>();
+        scopes.push(globalScope);
+        scopes.push(new HashMap<>());
+    }
+
+    public void popFrame() {
+        scopes = frames.pop();
+    }
 }
@@ -0,0 +1,119 @@
+package edu.montana.csci.csci468.eval;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// The representation of list<int> and list<bool> values: a growable int[], bools stored as 0
+// and 1.  Compiled code loops over the array directly, as a java.util.List it is a view that boxes
+// elements on the way out, so printing, equality and everything else written against List
+// behaves exactly like it does for a list of Integers or Booleans.
+//
+// Copied into ahead-of-time compiled jars, so it must not use anything outside of java.base.
+public class IntList extends AbstractList<Object> implements RandomAccess {
+
+    private final boolean booleans;
+    private int[] elements;
+    private int size;
+
+    public IntList(boolean booleans) {
+        this.elements = new int[8];
+        this.booleans = booleans;
+    }
+
+    // takes ownership of elements
+    public IntList(int[] elements, boolean booleans) {
+        this.elements = elements;
+        this.size = elements.length;
+        this.booleans = booleans;
+    }
+
+    // list itself if it already is an IntList, otherwise an unboxed copy
+    public static IntList from(List<?> list, boolean booleans) {
+        if (list instanceof IntList) {
+            return (IntList) list;
+        }
+        int[] elements = new int[list.size()];
+        int i = 0;
+        for (Object element : list) {
+            elements[i++] = unbox(element);
+        }
+        return new IntList(elements, booleans);
+    }
+
+    public boolean isBooleans() {
+        return booleans;
+    }
+
+    // the backing array, trimmed to size() so loops can run up to its length
+    public int[] elements() {
+        if (elements.length != size) {
+            elements = Arrays.copyOf(elements, size);
+        }
+        return elements;
+    }
+
+    public int getInt(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public void addInt(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(8, size * 2));
+        }
+        elements[size++] = value;
+        modCount++;
+    }
+
+    @Override
+    public Object get(int index) {
+        int value = getInt(index);
+        return booleans ? (Object) (value != 0) : (Object) value;
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        Object previous = get(index);
+        elements[index] = unbox(element);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        addInt(0);
+        System.arraycopy(elements, index, elements, index + 1, size - index - 1);
+        elements[index] = unbox(element);
+    }
+
+    @Override
+    public Object remove(int index) {
+        Object previous = get(index);
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static int unbox(Object element) {
+        if (element instanceof Boolean) {
+            return (Boolean) element ? 1 : 0;
+        }
+        return (Integer) element;
+    }
+}
@@ -0,0 +1,121 @@
+package edu.montana.csci.csci468.eval;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// Where print() goes.  Either collects everything in memory, for getOutput(), or streams it to a
+// Writer through a buffer of its own: Writer and BufferedWriter lock on every call, a sink
+// belongs to one execution and doesn't need to.  Call flush() when the execution is done.
+public class OutputSink {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final StringBuilder text;
+    private final Writer writer;
+    private final char[] buffer;
+    private int position;
+    private long length;
+
+    private OutputSink(StringBuilder text, Writer writer) {
+        this.text = text;
+        this.writer = writer;
+        this.buffer = writer == null ? null : new char[BUFFER_SIZE];
+    }
+
+    // keeps the output in memory
+    public static OutputSink buffer() {
+        return new OutputSink(new StringBuilder(), null);
+    }
+
+    public static OutputSink to(Writer writer) {
+        return new OutputSink(null, writer);
+    }
+
+    // UTF-8 encoded
+    public static OutputSink to(OutputStream stream) {
+        return to(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+    }
+
+    public void print(Object value) {
+        append(String.valueOf(value));
+        append('\n');
+    }
+
+    public void append(String string) {
+        length += string.length();
+        if (text != null) {
+            text.append(string);
+            return;
+        }
+        int offset = 0;
+        while (offset < string.length()) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int count = Math.min(buffer.length - position, string.length() - offset);
+            string.getChars(offset, offset + count, buffer, position);
+            position += count;
+            offset += count;
+        }
+    }
+
+    public void append(char c) {
+        length++;
+        if (text != null) {
+            text.append(c);
+            return;
+        }
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = c;
+    }
+
+    // chars printed so far, streamed or not
+    public long length() {
+        return length;
+    }
+
+    public boolean isStreaming() {
+        return writer != null;
+    }
+
+    // everything printed, for a sink made by buffer()
+    public String getOutput() {
+        if (text == null) {
+            throw new IllegalStateException("Output was streamed to " + writer);
+        }
+        return text.toString();
+    }
+
+    // passes everything printed so far on to the writer
+    public void flush() {
+        if (writer == null) {
+            return;
+        }
+        drain();
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void drain() {
+        try {
+            writer.write(buffer, 0, position);
+            position = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return text == null ? "OutputSink[" + writer + "]" : text.toString();
+    }
+}
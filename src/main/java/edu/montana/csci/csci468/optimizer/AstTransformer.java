@@ -0,0 +1,266 @@
+package edu.montana.csci.csci468.optimizer;
+
+import edu.montana.csci.csci468.parser.CatscriptType;
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.expressions.*;
+import edu.montana.csci.csci468.parser.statements.*;
+
+import java.util.LinkedList;
+import java.util.List;
+
+// Rebuilds a verified program node by node.  Subclasses override the transform methods
+// for the nodes they rewrite, everything else is copied as is.  The result is a fresh
+// tree that has not been validated yet, callers are expected to verify() it.
+public class AstTransformer {
+
+    private int changes;
+    private FunctionDefinitionStatement currentFunction;
+
+    public CatScriptProgram transform(CatScriptProgram program) {
+        changes = 0;
+        CatScriptProgram newProgram = copyLocation(program, new CatScriptProgram());
+        if (program.isExpression()) {
+            newProgram.setExpression(transformExpression(program.getExpression()));
+        } else {
+            for (Statement statement : transformBlock(program.getStatements())) {
+                newProgram.addStatement(statement);
+            }
+        }
+        return newProgram;
+    }
+
+    public int getChanges() {
+        return changes;
+    }
+
+    protected void changed() {
+        changes++;
+    }
+
+    protected FunctionDefinitionStatement getCurrentFunction() {
+        return currentFunction;
+    }
+
+    protected <T extends ParseElement> T copyLocation(ParseElement from, T to) {
+        to.setStart(from.getStart());
+        to.setEnd(from.getEnd());
+        return to;
+    }
+
+    //============================================================
+    //  Statements
+    //============================================================
+
+    protected List<Statement> transformBlock(List<Statement> statements) {
+        List<Statement> result = new LinkedList<>();
+        for (Statement statement : statements) {
+            Statement transformed = transformStatement(statement);
+            if (transformed != null) {
+                result.add(transformed);
+            }
+        }
+        return result;
+    }
+
+    // returns null if the statement should be dropped
+    protected Statement transformStatement(Statement statement) {
+        if (statement instanceof PrintStatement) {
+            return transformPrint((PrintStatement) statement);
+        } else if (statement instanceof VariableStatement) {
+            return transformVariable((VariableStatement) statement);
+        } else if (statement instanceof AssignmentStatement) {
+            return transformAssignment((AssignmentStatement) statement);
+        } else if (statement instanceof FunctionCallStatement) {
+            return transformFunctionCallStatement((FunctionCallStatement) statement);
+        } else if (statement instanceof IfStatement) {
+            return transformIf((IfStatement) statement);
+        } else if (statement instanceof ForStatement) {
+            return transformFor((ForStatement) statement);
+        } else if (statement instanceof ReturnStatement) {
+            return transformReturn((ReturnStatement) statement);
+        } else if (statement instanceof FunctionDefinitionStatement) {
+            return transformFunctionDefinition((FunctionDefinitionStatement) statement);
+        }
+        throw new IllegalStateException("Cannot transform " + statement);
+    }
+
+    protected Statement transformPrint(PrintStatement statement) {
+        PrintStatement print = copyLocation(statement, new PrintStatement());
+        print.setExpression(transformExpression(statement.getExpression()));
+        return print;
+    }
+
+    protected Statement transformVariable(VariableStatement statement) {
+        VariableStatement variable = copyLocation(statement, new VariableStatement());
+        variable.setVariableName(statement.getVariableName());
+        variable.setExplicitType(statement.getExplicitType());
+        variable.setExpression(transformExpression(statement.getExpression()));
+        return variable;
+    }
+
+    protected Statement transformAssignment(AssignmentStatement statement) {
+        AssignmentStatement assignment = copyLocation(statement, new AssignmentStatement());
+        assignment.setVariableName(statement.getVariableName());
+        assignment.setExpression(transformExpression(statement.getExpression()));
+        return assignment;
+    }
+
+    protected Statement transformFunctionCallStatement(FunctionCallStatement statement) {
+        FunctionCallExpression call = new FunctionCallExpression(statement.getName(),
+                transformExpressions(statement.getArguments()));
+        copyLocation(statement, call);
+        return copyLocation(statement, new FunctionCallStatement(call));
+    }
+
+    protected Statement transformIf(IfStatement statement) {
+        IfStatement ifStatement = copyLocation(statement, new IfStatement());
+        ifStatement.setExpression(transformExpression(statement.getExpression()));
+        ifStatement.setTrueStatements(transformBlock(statement.getTrueStatements()));
+        if (!statement.getElseStatements().isEmpty()) {
+            ifStatement.setElseStatements(transformBlock(statement.getElseStatements()));
+        }
+        return ifStatement;
+    }
+
+    protected Statement transformFor(ForStatement statement) {
+        ForStatement forStatement = copyLocation(statement, new ForStatement());
+        forStatement.setVariableName(statement.getVariableName());
+        forStatement.setExpression(transformExpression(statement.getExpression()));
+        forStatement.setBody(transformBlock(statement.getBody()));
+        return forStatement;
+    }
+
+    protected Statement transformReturn(ReturnStatement statement) {
+        ReturnStatement returnStatement = copyLocation(statement, new ReturnStatement());
+        returnStatement.setFunctionDefinition(currentFunction);
+        if (statement.getExpression() != null) {
+            returnStatement.setExpression(transformExpression(statement.getExpression()));
+        }
+        return returnStatement;
+    }
+
+    protected Statement transformFunctionDefinition(FunctionDefinitionStatement statement) {
+        FunctionDefinitionStatement function = copyLocation(statement, new FunctionDefinitionStatement());
+        function.setName(statement.getName());
+        for (int i = 0; i < statement.getParameterCount(); i++) {
+            CatscriptType parameterType = statement.getParameterType(i);
+            if (parameterType.equals(CatscriptType.OBJECT)) {
+                function.addParameter(statement.getParameterName(i), null);
+            } else {
+                function.addParameter(statement.getParameterName(i), typeLiteral(statement, parameterType));
+            }
+        }
+        if (statement.getType().equals(CatscriptType.VOID)) {
+            function.setType(null);
+        } else {
+            function.setType(typeLiteral(statement, statement.getType()));
+        }
+        FunctionDefinitionStatement enclosing = currentFunction;
+        currentFunction = function;
+        try {
+            function.setBody(transformBlock(statement.getBody()));
+        } finally {
+            currentFunction = enclosing;
+        }
+        return function;
+    }
+
+    private TypeLiteral typeLiteral(ParseElement location, CatscriptType type) {
+        TypeLiteral typeLiteral = new TypeLiteral();
+        typeLiteral.setType(type);
+        typeLiteral.setToken(location.getStart());
+        return typeLiteral;
+    }
+
+    //============================================================
+    //  Expressions
+    //============================================================
+
+    protected List<Expression> transformExpressions(List<Expression> expressions) {
+        List<Expression> result = new LinkedList<>();
+        for (Expression expression : expressions) {
+            result.add(transformExpression(expression));
+        }
+        return result;
+    }
+
+    protected Expression transformExpression(Expression expression) {
+        if (expression instanceof AdditiveExpression) {
+            return transformAdditive((AdditiveExpression) expression);
+        } else if (expression instanceof FactorExpression) {
+            return transformFactor((FactorExpression) expression);
+        } else if (expression instanceof ComparisonExpression) {
+            return transformComparison((ComparisonExpression) expression);
+        } else if (expression instanceof EqualityExpression) {
+            return transformEquality((EqualityExpression) expression);
+        } else if (expression instanceof UnaryExpression) {
+            return transformUnary((UnaryExpression) expression);
+        } else if (expression instanceof ParenthesizedExpression) {
+            return transformParenthesized((ParenthesizedExpression) expression);
+        } else if (expression instanceof FunctionCallExpression) {
+            return transformFunctionCall((FunctionCallExpression) expression);
+        } else if (expression instanceof IdentifierExpression) {
+            return transformIdentifier((IdentifierExpression) expression);
+        } else if (expression instanceof ListLiteralExpression) {
+            return transformListLiteral((ListLiteralExpression) expression);
+        } else if (expression instanceof IntegerLiteralExpression) {
+            IntegerLiteralExpression integer = (IntegerLiteralExpression) expression;
+            return copyLocation(integer, new IntegerLiteralExpression(String.valueOf(integer.getValue())));
+        } else if (expression instanceof StringLiteralExpression) {
+            StringLiteralExpression string = (StringLiteralExpression) expression;
+            return copyLocation(string, new StringLiteralExpression(string.getValue()));
+        } else if (expression instanceof BooleanLiteralExpression) {
+            BooleanLiteralExpression bool = (BooleanLiteralExpression) expression;
+            return copyLocation(bool, new BooleanLiteralExpression(bool.getValue()));
+        } else if (expression instanceof NullLiteralExpression) {
+            return copyLocation(expression, new NullLiteralExpression());
+        }
+        throw new IllegalStateException("Cannot transform " + expression);
+    }
+
+    protected Expression transformAdditive(AdditiveExpression expression) {
+        return copyLocation(expression, new AdditiveExpression(expression.getOperator(),
+                transformExpression(expression.getLeftHandSide()),
+                transformExpression(expression.getRightHandSide())));
+    }
+
+    protected Expression transformFactor(FactorExpression expression) {
+        return copyLocation(expression, new FactorExpression(expression.getOperator(),
+                transformExpression(expression.getLeftHandSide()),
+                transformExpression(expression.getRightHandSide())));
+    }
+
+    protected Expression transformComparison(ComparisonExpression expression) {
+        return copyLocation(expression, new ComparisonExpression(expression.getOperator(),
+                transformExpression(expression.getLeftHandSide()),
+                transformExpression(expression.getRightHandSide())));
+    }
+
+    protected Expression transformEquality(EqualityExpression expression) {
+        return copyLocation(expression, new EqualityExpression(expression.getOperator(),
+                transformExpression(expression.getLeftHandSide()),
+                transformExpression(expression.getRightHandSide())));
+    }
+
+    protected Expression transformUnary(UnaryExpression expression) {
+        return copyLocation(expression, new UnaryExpression(expression.getOperator(),
+                transformExpression(expression.getRightHandSide())));
+    }
+
+    protected Expression transformParenthesized(ParenthesizedExpression expression) {
+        return copyLocation(expression, new ParenthesizedExpression(transformExpression(expression.getExpression())));
+    }
+
+    protected Expression transformFunctionCall(FunctionCallExpression expression) {
+        return copyLocation(expression, new FunctionCallExpression(expression.getName(),
+                transformExpressions(expression.getArguments())));
+    }
+
+    protected Expression transformIdentifier(IdentifierExpression expression) {
+        return copyLocation(expression, new IdentifierExpression(expression.getName()));
+    }
+
+    protected Expression transformListLiteral(ListLiteralExpression expression) {
+        return copyLocation(expression, new ListLiteralExpression(transformExpressions(expression.getValues())));
+    }
+}
@@ -0,0 +1,279 @@
+package edu.montana.csci.csci468.optimizer;
+
+import edu.montana.csci.csci468.parser.CatscriptType;
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.expressions.*;
+import edu.montana.csci.csci468.parser.statements.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Folds operators over literals into a single literal and propagates globals that are
+// initialized to a literal and never reassigned.
+public class ConstantFoldingPass extends AstTransformer implements OptimizationPass {
+
+    private static final Object NOT_CONSTANT = new Object();
+
+    private final Map<String, Object> constants = new HashMap<>();
+    private Set<String> assignedNames;
+    private Set<String> functionSafeGlobals;
+
+    @Override
+    public String getName() {
+        return "constant-folding";
+    }
+
+    @Override
+    public CatScriptProgram apply(CatScriptProgram program) {
+        return transform(program);
+    }
+
+    @Override
+    public CatScriptProgram transform(CatScriptProgram program) {
+        constants.clear();
+        assignedNames = new HashSet<>();
+        collectAssignedNames(program, assignedNames);
+        functionSafeGlobals = collectFunctionSafeGlobals(program);
+        return super.transform(program);
+    }
+
+    //============================================================
+    //  Propagation
+    //============================================================
+
+    @Override
+    protected Statement transformVariable(VariableStatement statement) {
+        VariableStatement variable = (VariableStatement) super.transformVariable(statement);
+        if (statement.isGlobal() && !assignedNames.contains(statement.getVariableName())) {
+            Object value = constantValue(variable.getExpression());
+            // only propagate when the literal has exactly the declared type, otherwise
+            // substituting it could change how the surrounding expressions type check
+            if (value != NOT_CONSTANT && value != null &&
+                    literalType(value).equals(statement.getType())) {
+                constants.put(statement.getVariableName(), value);
+            }
+        }
+        return variable;
+    }
+
+    @Override
+    protected Statement transformFunctionDefinition(FunctionDefinitionStatement statement) {
+        // a function may be called before a global is initialized, so only globals set up
+        // before the first call are visible, minus anything the function shadows
+        Map<String, Object> globals = new HashMap<>(constants);
+        constants.keySet().retainAll(functionSafeGlobals);
+        for (int i = 0; i < statement.getParameterCount(); i++) {
+            constants.remove(statement.getParameterName(i));
+        }
+        Set<String> locals = new HashSet<>();
+        collectDeclaredNames(statement, locals);
+        constants.keySet().removeAll(locals);
+        try {
+            return super.transformFunctionDefinition(statement);
+        } finally {
+            constants.clear();
+            constants.putAll(globals);
+        }
+    }
+
+    @Override
+    protected Expression transformIdentifier(IdentifierExpression expression) {
+        if (constants.containsKey(expression.getName())) {
+            return literal(constants.get(expression.getName()), expression);
+        }
+        return super.transformIdentifier(expression);
+    }
+
+    //============================================================
+    //  Folding
+    //============================================================
+
+    @Override
+    protected Expression transformAdditive(AdditiveExpression expression) {
+        Expression lhs = transformExpression(expression.getLeftHandSide());
+        Expression rhs = transformExpression(expression.getRightHandSide());
+        Object lhsValue = constantValue(lhs);
+        Object rhsValue = constantValue(rhs);
+        if (lhsValue != NOT_CONSTANT && rhsValue != NOT_CONSTANT) {
+            if (lhsValue instanceof String || rhsValue instanceof String) {
+                return literal(String.valueOf(lhsValue) + rhsValue, expression);
+            } else if (lhsValue instanceof Integer && rhsValue instanceof Integer) {
+                if (expression.isAdd()) {
+                    return literal((Integer) lhsValue + (Integer) rhsValue, expression);
+                } else {
+                    return literal((Integer) lhsValue - (Integer) rhsValue, expression);
+                }
+            }
+        }
+        return copyLocation(expression, new AdditiveExpression(expression.getOperator(), lhs, rhs));
+    }
+
+    @Override
+    protected Expression transformFactor(FactorExpression expression) {
+        Expression lhs = transformExpression(expression.getLeftHandSide());
+        Expression rhs = transformExpression(expression.getRightHandSide());
+        Object lhsValue = constantValue(lhs);
+        Object rhsValue = constantValue(rhs);
+        if (lhsValue instanceof Integer && rhsValue instanceof Integer) {
+            if (expression.isMultiply()) {
+                return literal((Integer) lhsValue * (Integer) rhsValue, expression);
+            } else if ((Integer) rhsValue != 0) {
+                // division by zero is left in place so that it still fails at runtime
+                return literal((Integer) lhsValue / (Integer) rhsValue, expression);
+            }
+        }
+        return copyLocation(expression, new FactorExpression(expression.getOperator(), lhs, rhs));
+    }
+
+    @Override
+    protected Expression transformComparison(ComparisonExpression expression) {
+        Expression lhs = transformExpression(expression.getLeftHandSide());
+        Expression rhs = transformExpression(expression.getRightHandSide());
+        Object lhsValue = constantValue(lhs);
+        Object rhsValue = constantValue(rhs);
+        if (lhsValue instanceof Integer && rhsValue instanceof Integer) {
+            int left = (Integer) lhsValue;
+            int right = (Integer) rhsValue;
+            if (expression.isGreater()) {
+                return literal(left > right, expression);
+            } else if (expression.isGreaterThanOrEqual()) {
+                return literal(left >= right, expression);
+            } else if (expression.isLessThanOrEqual()) {
+                return literal(left <= right, expression);
+            } else {
+                return literal(left < right, expression);
+            }
+        }
+        return copyLocation(expression, new ComparisonExpression(expression.getOperator(), lhs, rhs));
+    }
+
+    @Override
+    protected Expression transformEquality(EqualityExpression expression) {
+        Expression lhs = transformExpression(expression.getLeftHandSide());
+        Expression rhs = transformExpression(expression.getRightHandSide());
+        Object lhsValue = constantValue(lhs);
+        Object rhsValue = constantValue(rhs);
+        if (lhsValue != NOT_CONSTANT && rhsValue != NOT_CONSTANT) {
+            boolean equal = Objects.equals(lhsValue, rhsValue);
+            return literal(expression.isEqual() == equal, expression);
+        }
+        return copyLocation(expression, new EqualityExpression(expression.getOperator(), lhs, rhs));
+    }
+
+    @Override
+    protected Expression transformUnary(UnaryExpression expression) {
+        Expression rhs = transformExpression(expression.getRightHandSide());
+        Object value = constantValue(rhs);
+        if (expression.isMinus() && value instanceof Integer) {
+            return literal(-1 * (Integer) value, expression);
+        } else if (expression.isNot() && value instanceof Boolean) {
+            return literal(!(Boolean) value, expression);
+        }
+        return copyLocation(expression, new UnaryExpression(expression.getOperator(), rhs));
+    }
+
+    @Override
+    protected Expression transformParenthesized(ParenthesizedExpression expression) {
+        Expression inner = transformExpression(expression.getExpression());
+        Object value = constantValue(inner);
+        if (value != NOT_CONSTANT) {
+            changed();
+            return inner;
+        }
+        return copyLocation(expression, new ParenthesizedExpression(inner));
+    }
+
+    //============================================================
+    //  Helpers
+    //============================================================
+
+    static Object constantValue(Expression expression) {
+        if (expression instanceof IntegerLiteralExpression) {
+            return ((IntegerLiteralExpression) expression).getValue();
+        } else if (expression instanceof StringLiteralExpression) {
+            return ((StringLiteralExpression) expression).getValue();
+        } else if (expression instanceof BooleanLiteralExpression) {
+            return ((BooleanLiteralExpression) expression).getValue();
+        } else if (expression instanceof NullLiteralExpression) {
+            return null;
+        }
+        return NOT_CONSTANT;
+    }
+
+    private static CatscriptType literalType(Object value) {
+        if (value instanceof Integer) {
+            return CatscriptType.INT;
+        } else if (value instanceof String) {
+            return CatscriptType.STRING;
+        } else {
+            return CatscriptType.BOOLEAN;
+        }
+    }
+
+    private Expression literal(Object value, Expression original) {
+        changed();
+        Expression literal;
+        if (value instanceof Integer) {
+            literal = new IntegerLiteralExpression(String.valueOf(value));
+        } else if (value instanceof String) {
+            literal = new StringLiteralExpression((String) value);
+        } else if (value instanceof Boolean) {
+            literal = new BooleanLiteralExpression((Boolean) value);
+        } else {
+            literal = new NullLiteralExpression();
+        }
+        return copyLocation(original, literal);
+    }
+
+    private static void collectAssignedNames(ParseElement element, Set<String> names) {
+        if (element instanceof AssignmentStatement) {
+            names.add(((AssignmentStatement) element).getVariableName());
+        }
+        for (ParseElement child : element.getChildren()) {
+            collectAssignedNames(child, names);
+        }
+    }
+
+    private static void collectDeclaredNames(ParseElement element, Set<String> names) {
+        if (element instanceof VariableStatement) {
+            names.add(((VariableStatement) element).getVariableName());
+        } else if (element instanceof ForStatement) {
+            names.add(((ForStatement) element).getVariableName());
+        }
+        for (ParseElement child : element.getChildren()) {
+            collectDeclaredNames(child, names);
+        }
+    }
+
+    // globals declared before the first top level statement that can call a function
+    private static Set<String> collectFunctionSafeGlobals(CatScriptProgram program) {
+        Set<String> globals = new HashSet<>();
+        for (Statement statement : program.getStatements()) {
+            if (statement instanceof FunctionDefinitionStatement) {
+                continue;
+            }
+            if (containsCall(statement)) {
+                break;
+            }
+            if (statement instanceof VariableStatement) {
+                globals.add(((VariableStatement) statement).getVariableName());
+            }
+        }
+        return globals;
+    }
+
+    private static boolean containsCall(ParseElement element) {
+        if (element instanceof FunctionCallExpression) {
+            return true;
+        }
+        for (ParseElement child : element.getChildren()) {
+            if (containsCall(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
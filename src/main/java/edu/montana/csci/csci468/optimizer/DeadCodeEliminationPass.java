@@ -0,0 +1,97 @@
+package edu.montana.csci.csci468.optimizer;
+
+import edu.montana.csci.csci468.parser.expressions.BooleanLiteralExpression;
+import edu.montana.csci.csci468.parser.expressions.Expression;
+import edu.montana.csci.csci468.parser.expressions.ListLiteralExpression;
+import edu.montana.csci.csci468.parser.statements.*;
+
+import java.util.LinkedList;
+import java.util.List;
+
+// Removes statements after a return, the untaken branch of if(true)/if(false) and
+// loops over empty list literals.  Run it after constant folding so that conditions
+// have already been reduced to literals.
+public class DeadCodeEliminationPass extends AstTransformer implements OptimizationPass {
+
+    @Override
+    public String getName() {
+        return "dead-code-elimination";
+    }
+
+    @Override
+    public CatScriptProgram apply(CatScriptProgram program) {
+        return transform(program);
+    }
+
+    @Override
+    protected List<Statement> transformBlock(List<Statement> statements) {
+        List<Statement> result = new LinkedList<>();
+        int remaining = statements.size();
+        for (Statement statement : statements) {
+            remaining--;
+            if (statement instanceof IfStatement && isConstant(((IfStatement) statement).getExpression())) {
+                result.addAll(eliminateBranch((IfStatement) statement));
+            } else if (isEmptyLoop(statement)) {
+                changed();
+            } else {
+                result.add(transformStatement(statement));
+            }
+            if (!result.isEmpty() && result.get(result.size() - 1) instanceof ReturnStatement) {
+                // everything after a return in the same block is unreachable
+                for (int i = 0; i < remaining; i++) {
+                    changed();
+                }
+                break;
+            }
+        }
+        return result;
+    }
+
+    private List<Statement> eliminateBranch(IfStatement statement) {
+        boolean condition = ((BooleanLiteralExpression) statement.getExpression()).getValue();
+        List<Statement> taken = condition ? statement.getTrueStatements() : statement.getElseStatements();
+        List<Statement> untaken = condition ? statement.getElseStatements() : statement.getTrueStatements();
+        List<Statement> result = new LinkedList<>();
+        if (declaresVariables(taken)) {
+            // the branch has its own scope, splicing it into the enclosing block could
+            // clash with names declared there, so keep it in an if(true) block
+            if (condition && untaken.isEmpty()) {
+                result.add(transformStatement(statement));
+                return result;
+            }
+            IfStatement ifStatement = copyLocation(statement, new IfStatement());
+            ifStatement.setExpression(copyLocation(statement.getExpression(), new BooleanLiteralExpression(true)));
+            ifStatement.setTrueStatements(transformBlock(taken));
+            result.add(ifStatement);
+        } else {
+            result.addAll(transformBlock(taken));
+        }
+        changed();
+        for (int i = 0; i < untaken.size(); i++) {
+            changed();
+        }
+        return result;
+    }
+
+    private boolean isConstant(Expression expression) {
+        return expression instanceof BooleanLiteralExpression;
+    }
+
+    private boolean isEmptyLoop(Statement statement) {
+        if (statement instanceof ForStatement) {
+            Expression expression = ((ForStatement) statement).getExpression();
+            return expression instanceof ListLiteralExpression &&
+                    ((ListLiteralExpression) expression).getValues().isEmpty();
+        }
+        return false;
+    }
+
+    private boolean declaresVariables(List<Statement> statements) {
+        for (Statement statement : statements) {
+            if (statement instanceof VariableStatement) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
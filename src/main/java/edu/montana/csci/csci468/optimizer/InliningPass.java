@@ -0,0 +1,347 @@
+package edu.montana.csci.csci468.optimizer;
+
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.expressions.*;
+import edu.montana.csci.csci468.parser.statements.*;
+
+import java.util.*;
+
+// Substitutes the bodies of small, non-recursive functions at their call sites.
+//
+// A function whose body is a single `return <expr>` is inlined wherever it is called, as
+// long as every argument is a literal or an identifier (so substituting it for the
+// parameter cannot duplicate side effects), and identifiers only into bodies without calls
+// (so they are still read before anything the call does).  A function without any return statement
+// that is called as a statement is spliced into the calling block, with its parameters
+// bound to fresh variables and its locals renamed.  Fresh names contain a '$', which the
+// tokenizer never produces, so they cannot clash with user names.
+public class InliningPass extends AstTransformer implements OptimizationPass {
+
+    public static final int DEFAULT_BUDGET = 16;
+
+    private final int budget;
+    private Map<String, FunctionDefinitionStatement> functions;
+    private Set<String> recursiveFunctions;
+    private Set<String> visibleGlobals;
+    private Set<String> enclosingLocals;
+    private int inlineCounter;
+
+    public InliningPass() {
+        this(DEFAULT_BUDGET);
+    }
+
+    public InliningPass(int budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    public String getName() {
+        return "inlining";
+    }
+
+    @Override
+    public CatScriptProgram apply(CatScriptProgram program) {
+        return transform(program);
+    }
+
+    @Override
+    public CatScriptProgram transform(CatScriptProgram program) {
+        functions = new HashMap<>();
+        for (Statement statement : program.getStatements()) {
+            if (statement instanceof FunctionDefinitionStatement) {
+                FunctionDefinitionStatement function = (FunctionDefinitionStatement) statement;
+                functions.put(function.getName(), function);
+            }
+        }
+        recursiveFunctions = findRecursiveFunctions();
+        visibleGlobals = new HashSet<>();
+        enclosingLocals = new HashSet<>();
+        for (Statement statement : program.getStatements()) {
+            if (!(statement instanceof FunctionDefinitionStatement)) {
+                collectLocalNames(statement, enclosingLocals);
+            }
+        }
+        inlineCounter = 0;
+        return super.transform(program);
+    }
+
+    @Override
+    protected Statement transformVariable(VariableStatement statement) {
+        Statement variable = super.transformVariable(statement);
+        if (statement.isGlobal()) {
+            visibleGlobals.add(statement.getVariableName());
+        }
+        return variable;
+    }
+
+    @Override
+    protected Statement transformFunctionDefinition(FunctionDefinitionStatement statement) {
+        Set<String> globals = visibleGlobals;
+        Set<String> locals = enclosingLocals;
+        visibleGlobals = new HashSet<>(globals);
+        enclosingLocals = new HashSet<>();
+        for (int i = 0; i < statement.getParameterCount(); i++) {
+            enclosingLocals.add(statement.getParameterName(i));
+        }
+        collectLocalNames(statement, enclosingLocals);
+        try {
+            return super.transformFunctionDefinition(statement);
+        } finally {
+            visibleGlobals = globals;
+            enclosingLocals = locals;
+        }
+    }
+
+    //============================================================
+    //  Expression inlining
+    //============================================================
+
+    @Override
+    protected Expression transformFunctionCall(FunctionCallExpression expression) {
+        FunctionDefinitionStatement function = functions.get(expression.getName());
+        if (function == null || !isExpressionInlinable(function, expression.getArguments())) {
+            return super.transformFunctionCall(expression);
+        }
+        Map<String, Expression> arguments = new HashMap<>();
+        for (int i = 0; i < function.getParameterCount(); i++) {
+            arguments.put(function.getParameterName(i), expression.getArguments().get(i));
+        }
+        Expression returned = ((ReturnStatement) function.getBody().get(0)).getExpression();
+        Expression inlined = new Renamer(arguments, Collections.emptyMap()).transformExpression(returned);
+        changed();
+        return copyLocation(expression, new ParenthesizedExpression(inlined));
+    }
+
+    private boolean isExpressionInlinable(FunctionDefinitionStatement function, List<Expression> arguments) {
+        if (!isSmallAndNonRecursive(function) || function.getBody().size() != 1 ||
+                !(function.getBody().get(0) instanceof ReturnStatement)) {
+            return false;
+        }
+        Expression returned = ((ReturnStatement) function.getBody().get(0)).getExpression();
+        if (returned == null || !returned.getType().equals(function.getType())) {
+            return false;
+        }
+        // a call in the body may assign a global passed as an argument, which the call read before
+        // the body ran but the substituted identifier would read after
+        Set<String> callees = new HashSet<>();
+        collectCallees(returned, callees);
+        for (int i = 0; i < arguments.size(); i++) {
+            Expression argument = arguments.get(i);
+            boolean simple = (argument instanceof IdentifierExpression && callees.isEmpty()) ||
+                    argument instanceof IntegerLiteralExpression ||
+                    argument instanceof StringLiteralExpression || argument instanceof BooleanLiteralExpression;
+            // the substituted argument must type check exactly like the parameter did
+            if (!simple || !function.getParameterType(i).equals(argument.getType())) {
+                return false;
+            }
+        }
+        return freeNamesResolveHere(function);
+    }
+
+    //============================================================
+    //  Statement inlining
+    //============================================================
+
+    @Override
+    protected List<Statement> transformBlock(List<Statement> statements) {
+        List<Statement> result = new LinkedList<>();
+        for (Statement statement : statements) {
+            if (statement instanceof FunctionCallStatement && isStatementInlinable((FunctionCallStatement) statement)) {
+                result.addAll(inlineStatement((FunctionCallStatement) statement));
+            } else {
+                Statement transformed = transformStatement(statement);
+                if (transformed != null) {
+                    result.add(transformed);
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean isStatementInlinable(FunctionCallStatement call) {
+        FunctionDefinitionStatement function = functions.get(call.getName());
+        return function != null && isSmallAndNonRecursive(function) &&
+                !containsReturn(function) && freeNamesResolveHere(function);
+    }
+
+    private List<Statement> inlineStatement(FunctionCallStatement call) {
+        FunctionDefinitionStatement function = functions.get(call.getName());
+        int id = ++inlineCounter;
+        Map<String, String> renames = new HashMap<>();
+        Set<String> locals = new HashSet<>();
+        collectLocalNames(function, locals);
+        for (int i = 0; i < function.getParameterCount(); i++) {
+            locals.add(function.getParameterName(i));
+        }
+        for (String local : locals) {
+            renames.put(local, local + "$" + function.getName() + id);
+        }
+
+        List<Statement> result = new LinkedList<>();
+        for (int i = 0; i < function.getParameterCount(); i++) {
+            Expression argument = call.getArguments().get(i);
+            VariableStatement parameter = copyLocation(argument, new VariableStatement());
+            parameter.setVariableName(renames.get(function.getParameterName(i)));
+            parameter.setExplicitType(function.getParameterType(i));
+            parameter.setExpression(transformExpression(argument));
+            result.add(parameter);
+        }
+        result.addAll(new Renamer(Collections.emptyMap(), renames).transformBlock(function.getBody()));
+        changed();
+        return result;
+    }
+
+    //============================================================
+    //  Analysis
+    //============================================================
+
+    private boolean isSmallAndNonRecursive(FunctionDefinitionStatement function) {
+        return !recursiveFunctions.contains(function.getName()) && countNodes(function) <= budget;
+    }
+
+    // the globals the body refers to must already be declared at the call site and must
+    // not be shadowed by a local of the caller
+    private boolean freeNamesResolveHere(FunctionDefinitionStatement function) {
+        Set<String> locals = new HashSet<>();
+        collectLocalNames(function, locals);
+        for (int i = 0; i < function.getParameterCount(); i++) {
+            locals.add(function.getParameterName(i));
+        }
+        Set<String> referenced = new HashSet<>();
+        collectReferencedNames(function, referenced);
+        referenced.removeAll(locals);
+        for (String name : referenced) {
+            if (!visibleGlobals.contains(name) || enclosingLocals.contains(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Set<String> findRecursiveFunctions() {
+        Map<String, Set<String>> callGraph = new HashMap<>();
+        for (FunctionDefinitionStatement function : functions.values()) {
+            Set<String> callees = new HashSet<>();
+            collectCallees(function, callees);
+            callGraph.put(function.getName(), callees);
+        }
+        Set<String> recursive = new HashSet<>();
+        for (String name : callGraph.keySet()) {
+            Set<String> reachable = new HashSet<>();
+            Deque<String> work = new LinkedList<>(callGraph.get(name));
+            while (!work.isEmpty()) {
+                String callee = work.pop();
+                if (reachable.add(callee) && callGraph.containsKey(callee)) {
+                    work.addAll(callGraph.get(callee));
+                }
+            }
+            if (reachable.contains(name)) {
+                recursive.add(name);
+            }
+        }
+        return recursive;
+    }
+
+    private static int countNodes(ParseElement element) {
+        int count = 1;
+        for (ParseElement child : element.getChildren()) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+
+    private static boolean containsReturn(ParseElement element) {
+        if (element instanceof ReturnStatement) {
+            return true;
+        }
+        for (ParseElement child : element.getChildren()) {
+            if (containsReturn(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void collectCallees(ParseElement element, Set<String> callees) {
+        if (element instanceof FunctionCallExpression) {
+            callees.add(((FunctionCallExpression) element).getName());
+        }
+        for (ParseElement child : element.getChildren()) {
+            collectCallees(child, callees);
+        }
+    }
+
+    private static void collectReferencedNames(ParseElement element, Set<String> names) {
+        if (element instanceof IdentifierExpression) {
+            names.add(((IdentifierExpression) element).getName());
+        } else if (element instanceof AssignmentStatement) {
+            names.add(((AssignmentStatement) element).getVariableName());
+        }
+        for (ParseElement child : element.getChildren()) {
+            collectReferencedNames(child, names);
+        }
+    }
+
+    // names declared below element, not counting globals and not descending into functions
+    private static void collectLocalNames(ParseElement element, Set<String> names) {
+        if (element instanceof VariableStatement && !((VariableStatement) element).isGlobal()) {
+            names.add(((VariableStatement) element).getVariableName());
+        } else if (element instanceof ForStatement) {
+            names.add(((ForStatement) element).getVariableName());
+        }
+        for (ParseElement child : element.getChildren()) {
+            if (!(child instanceof FunctionDefinitionStatement)) {
+                collectLocalNames(child, names);
+            }
+        }
+    }
+
+    // copies a function body, replacing parameters with (copies of) the original argument
+    // expressions and renaming locals
+    private class Renamer extends AstTransformer {
+        private final Map<String, Expression> arguments;
+        private final Map<String, String> renames;
+
+        Renamer(Map<String, Expression> arguments, Map<String, String> renames) {
+            this.arguments = arguments;
+            this.renames = renames;
+        }
+
+        private String rename(String name) {
+            return renames.getOrDefault(name, name);
+        }
+
+        @Override
+        protected Expression transformIdentifier(IdentifierExpression expression) {
+            if (arguments.containsKey(expression.getName())) {
+                return InliningPass.this.transformExpression(arguments.get(expression.getName()));
+            }
+            return copyLocation(expression, new IdentifierExpression(rename(expression.getName())));
+        }
+
+        @Override
+        protected Statement transformVariable(VariableStatement statement) {
+            VariableStatement variable = (VariableStatement) super.transformVariable(statement);
+            variable.setVariableName(rename(statement.getVariableName()));
+            // pin the type, the statement may end up somewhere that infers differently
+            if (variable.getExplicitType() == null) {
+                variable.setExplicitType(statement.getType());
+            }
+            return variable;
+        }
+
+        @Override
+        protected Statement transformAssignment(AssignmentStatement statement) {
+            AssignmentStatement assignment = (AssignmentStatement) super.transformAssignment(statement);
+            assignment.setVariableName(rename(statement.getVariableName()));
+            return assignment;
+        }
+
+        @Override
+        protected Statement transformFor(ForStatement statement) {
+            ForStatement forStatement = (ForStatement) super.transformFor(statement);
+            forStatement.setVariableName(rename(statement.getVariableName()));
+            return forStatement;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package edu.montana.csci.csci468.optimizer;
+
+import java.util.LinkedList;
+import java.util.List;
+
+public enum OptimizationLevel {
+    O0,
+    O1,
+    O2;
+
+    public List<OptimizationPass> createPasses() {
+        List<OptimizationPass> passes = new LinkedList<>();
+        if (this.compareTo(O1) >= 0) {
+            passes.add(new ConstantFoldingPass());
+            passes.add(new DeadCodeEliminationPass());
+        }
+        if (this.compareTo(O2) >= 0) {
+            // inlined bodies usually expose more constants and dead branches
+            passes.add(new InliningPass());
+            passes.add(new ConstantFoldingPass());
+            passes.add(new DeadCodeEliminationPass());
+            passes.add(new PartialEvaluationPass());
+        }
+        return passes;
+    }
+
+    // accepts "-O1", "O1" or "1", throws an IllegalArgumentException naming the levels for
+    // anything else
+    public static OptimizationLevel parse(String level) {
+        if (level == null || level.isBlank()) {
+            return O1;
+        }
+        String name = level.trim();
+        if (name.startsWith("-")) {
+            name = name.substring(1);
+        }
+        if (!name.toUpperCase().startsWith("O")) {
+            name = "O" + name;
+        }
+        for (OptimizationLevel optimizationLevel : values()) {
+            if (optimizationLevel.name().equalsIgnoreCase(name)) {
+                return optimizationLevel;
+            }
+        }
+        throw new IllegalArgumentException("Unknown optimization level " + level + ", expected one of -O0, -O1 or -O2");
+    }
+}
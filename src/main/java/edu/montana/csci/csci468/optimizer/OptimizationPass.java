@@ -0,0 +1,14 @@
+package edu.montana.csci.csci468.optimizer;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+public interface OptimizationPass {
+
+    String getName();
+
+    // takes a verified program and returns a rewritten, not yet verified, program
+    CatScriptProgram apply(CatScriptProgram program);
+
+    // number of nodes the last apply() changed
+    int getChanges();
+}
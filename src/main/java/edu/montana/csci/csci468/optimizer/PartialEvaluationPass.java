@@ -0,0 +1,143 @@
+package edu.montana.csci.csci468.optimizer;
+
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.expressions.StringLiteralExpression;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.PrintStatement;
+
+// CatScript programs read no input, so a program that terminates always prints the same
+// thing.  This pass runs a copy of the program in the interpreter under a step and memory
+// budget and, if it finishes, replaces it with a single print of the recorded output.
+// If the budget runs out or the program fails at runtime, only the fully static parts are
+// folded and everything else is left for runtime.
+public class PartialEvaluationPass implements OptimizationPass {
+
+    public static final int DEFAULT_MAX_STEPS = 100_000;
+    // keeps the residual string literal well inside the class file constant pool limit
+    public static final int DEFAULT_MAX_OUTPUT = 16 * 1024;
+
+    private final int maxSteps;
+    private final int maxOutput;
+    private final ConstantFoldingPass fallback = new ConstantFoldingPass();
+    private int changes;
+
+    public PartialEvaluationPass() {
+        this(DEFAULT_MAX_STEPS, DEFAULT_MAX_OUTPUT);
+    }
+
+    public PartialEvaluationPass(int maxSteps, int maxOutput) {
+        this.maxSteps = maxSteps;
+        this.maxOutput = maxOutput;
+    }
+
+    @Override
+    public String getName() {
+        return "partial-evaluation";
+    }
+
+    @Override
+    public int getChanges() {
+        return changes;
+    }
+
+    @Override
+    public CatScriptProgram apply(CatScriptProgram program) {
+        String output = evaluate(program);
+        if (output == null) {
+            CatScriptProgram folded = fallback.apply(program);
+            changes = fallback.getChanges();
+            return folded;
+        }
+        CatScriptProgram residual = new CatScriptProgram();
+        residual.setStart(program.getStart());
+        residual.setEnd(program.getEnd());
+        if (!output.isEmpty()) {
+            // every print appends a newline, a single print of everything but the last
+            // newline reproduces the output exactly
+            PrintStatement print = new PrintStatement();
+            print.setToken(program.getStart());
+            StringLiteralExpression value = new StringLiteralExpression(output.substring(0, output.length() - 1));
+            value.setToken(program.getStart());
+            print.setExpression(value);
+            residual.addStatement(print);
+        }
+        changes = Math.max(0, countNodes(program) - countNodes(residual));
+        return residual;
+    }
+
+    // returns null if the program could not be evaluated within the budget
+    private String evaluate(CatScriptProgram program) {
+        CatScriptProgram copy = new AstTransformer().transform(program);
+        copy.verify();
+        try {
+            BudgetedRuntime runtime = new BudgetedRuntime();
+            copy.execute(runtime);
+            return runtime.getOutput();
+        } catch (BudgetExceededException | StackOverflowError exhausted) {
+            return null;
+        } catch (RuntimeException runtimeError) {
+            // leave the failure to happen at runtime
+            return null;
+        }
+    }
+
+    private static int countNodes(ParseElement element) {
+        int count = 1;
+        for (ParseElement child : element.getChildren()) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+
+    private static class BudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceededException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // every variable access, scope and call is a step, output and stored strings count
+    // against the memory budget
+    private class BudgetedRuntime extends CatscriptRuntime {
+        private int steps;
+
+        private void step(Object value) {
+            if (++steps > maxSteps || getOutputLength() > maxOutput ||
+                    (value instanceof String && ((String) value).length() > maxOutput)) {
+                throw new BudgetExceededException();
+            }
+        }
+
+        @Override
+        public Object getValue(String name) {
+            step(null);
+            return super.getValue(name);
+        }
+
+        @Override
+        public void setValue(String variableName, Object val) {
+            step(val);
+            super.setValue(variableName, val);
+        }
+
+        @Override
+        public void declareValue(String variableName, Object val) {
+            step(val);
+            super.declareValue(variableName, val);
+        }
+
+        @Override
+        public void pushScope() {
+            step(null);
+            super.pushScope();
+        }
+
+        @Override
+        public void pushFrame() {
+            step(null);
+            super.pushFrame();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package edu.montana.csci.csci468.optimizer;
+
+import edu.montana.csci.csci468.parser.ParseErrorException;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+// Runs an ordered list of passes over a verified program, verifying the result of
+// every pass so that the next one (and the backends) see fully typed trees.
+public class PassManager {
+
+    private final List<OptimizationPass> passes;
+    private final List<PassStatistics> statistics = new LinkedList<>();
+
+    public PassManager(OptimizationLevel level) {
+        this(level.createPasses());
+    }
+
+    public PassManager(OptimizationPass... passes) {
+        this(Arrays.asList(passes));
+    }
+
+    public PassManager(List<OptimizationPass> passes) {
+        this.passes = new LinkedList<>(passes);
+    }
+
+    public CatScriptProgram optimize(CatScriptProgram program) {
+        statistics.clear();
+        for (OptimizationPass pass : passes) {
+            long start = System.nanoTime();
+            CatScriptProgram optimized = pass.apply(program);
+            try {
+                optimized.verify();
+            } catch (ParseErrorException parseErrorException) {
+                throw new IllegalStateException("Optimization pass " + pass.getName() +
+                        " produced an invalid program", parseErrorException);
+            }
+            statistics.add(new PassStatistics(pass.getName(), System.nanoTime() - start, pass.getChanges()));
+            program = optimized;
+        }
+        return program;
+    }
+
+    public List<OptimizationPass> getPasses() {
+        return passes;
+    }
+
+    public List<PassStatistics> getStatistics() {
+        return statistics;
+    }
+
+    public int getTotalChanges() {
+        int total = 0;
+        for (PassStatistics statistic : statistics) {
+            total += statistic.getChanges();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,31 @@
+package edu.montana.csci.csci468.optimizer;
+
+public class PassStatistics {
+
+    private final String passName;
+    private final long nanos;
+    private final int changes;
+
+    public PassStatistics(String passName, long nanos, int changes) {
+        this.passName = passName;
+        this.nanos = nanos;
+        this.changes = changes;
+    }
+
+    public String getPassName() {
+        return passName;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public int getChanges() {
+        return changes;
+    }
+
+    @Override
+    public String toString() {
+        return passName + ": " + changes + " changes in " + (nanos / 1000) + "us";
+    }
+}
@@ -1,9 +1,9 @@
 package edu.montana.csci.csci468.parser;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CatscriptType {
 
@@ -26,7 +26,8 @@ public class CatscriptType {
         if (type == VOID) {
             return false;
         } else if (type == NULL) {
-            return true;
+            // ints and bools are unboxed, there is no null to give them
+            return this != INT && this != BOOLEAN;
         } else if (this.javaClass.isAssignableFrom(type.javaClass)) {
             return true;
         }
@@ -34,23 +35,10 @@ public class CatscriptType {
     }
 
     // Memoization
-    // not a thread safe implementation - alright for the purpose of Catscript
-    private static Map<CatscriptType, ListType> cache = new HashMap();
+    // programs are verified on several threads at once (server workers, parallel tests)
+    private static final Map<CatscriptType, ListType> cache = new ConcurrentHashMap<>();
     public static CatscriptType getListType(CatscriptType type) {
-        // getting the current type.
-        ListType listType = cache.get(type);
-        // if there is a current type stored, then return that type.
-        if (listType != null) {
-            return  listType;
-        }
-        /* If there is no current type stored, then put the new type in the map
-        * the key being type and the value stored being hasListType*/
-        else {
-            ListType hasListType = new ListType(type);
-            cache.put(type, hasListType);
-            return hasListType;
-            //return new ListType(hasListType);
-        }
+        return cache.computeIfAbsent(type, ListType::new);
     }
 
     @Override
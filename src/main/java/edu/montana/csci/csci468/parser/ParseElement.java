@@ -157,7 +157,53 @@ public abstract class ParseElement {
         }
         if (type.equals(CatscriptType.BOOLEAN)) {
             code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(Boolean.class),
-                    "booleanValue", "()Z;");
+                    "booleanValue", "()Z");
+        }
+    }
+
+    // int and bool values are kept unboxed as JVM ints in compiled code
+    protected static boolean isPrimitive(CatscriptType type) {
+        return type.equals(CatscriptType.INT) || type.equals(CatscriptType.BOOLEAN);
+    }
+
+    // field and parameter descriptor for a value of the given type
+    protected static String descriptorFor(CatscriptType type) {
+        if (isPrimitive(type)) {
+            return "I";
+        } else {
+            return "L" + internalNameFor(type.getJavaType()) + ";";
+        }
+    }
+
+    // how a value of the given type is passed to a string conversion or concatenation
+    protected static String stringConversionDescriptorFor(CatscriptType type) {
+        if (type.equals(CatscriptType.INT)) {
+            return "I";
+        } else if (type.equals(CatscriptType.BOOLEAN)) {
+            return "Z";
+        } else if (type.equals(CatscriptType.STRING)) {
+            return "Ljava/lang/String;";
+        } else {
+            return "Ljava/lang/Object;";
+        }
+    }
+
+    // converts the value on top of the stack from its static type to the representation
+    // expected for the target type
+    protected void coerce(ByteCodeGenerator code, CatscriptType from, CatscriptType to) {
+        if (isPrimitive(to)) {
+            if (!isPrimitive(from)) {
+                code.addTypeInstruction(Opcodes.CHECKCAST, internalNameFor(to.getJavaType()));
+                unbox(code, to);
+            }
+        } else if (isPrimitive(from)) {
+            box(code, from);
+        } else {
+            Class<?> toClass = to.getJavaType();
+            Class<?> fromClass = from.getJavaType();
+            if (!toClass.isAssignableFrom(fromClass)) {
+                code.addTypeInstruction(Opcodes.CHECKCAST, internalNameFor(toClass));
+            }
         }
     }
 
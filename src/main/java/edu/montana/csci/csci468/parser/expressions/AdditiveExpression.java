@@ -10,11 +10,18 @@ import edu.montana.csci.csci468.tokenizer.Token;
 import edu.montana.csci.csci468.tokenizer.TokenType;
 import org.objectweb.asm.Opcodes;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
+
 public class AdditiveExpression extends Expression {
 
     private final Token operator;
     private final Expression leftHandSide;
     private final Expression rightHandSide;
+    // computed on first use, possibly by several executions of a shared tree at once
+    private volatile List<Expression> concatenationOperands;
 
     public AdditiveExpression(Token operator, Expression leftHandSide, Expression rightHandSide) {
         this.leftHandSide = addChild(leftHandSide);
@@ -28,6 +35,9 @@ public class AdditiveExpression extends Expression {
     public Expression getRightHandSide() {
         return rightHandSide;
     }
+    public Token getOperator() {
+        return operator;
+    }
     public boolean isAdd() {
         return operator.getType() == TokenType.PLUS;
     }
@@ -55,6 +65,33 @@ public class AdditiveExpression extends Expression {
         }
     }
 
+    // a chain like a + b + c + d on strings parses as a left-deep tree, this is the
+    // flattened list of leaves so the whole chain can be built in one go
+    public List<Expression> getConcatenationOperands() {
+        if (concatenationOperands == null) {
+            List<Expression> operands = new ArrayList<>();
+            collectConcatenationOperands(this, operands);
+            concatenationOperands = List.copyOf(operands);
+        }
+        return concatenationOperands;
+    }
+
+    private static void collectConcatenationOperands(Expression expression, List<Expression> operands) {
+        if (expression instanceof ParenthesizedExpression && isConcatenation(((ParenthesizedExpression) expression).getExpression())) {
+            collectConcatenationOperands(((ParenthesizedExpression) expression).getExpression(), operands);
+        } else if (isConcatenation(expression)) {
+            AdditiveExpression additive = (AdditiveExpression) expression;
+            collectConcatenationOperands(additive.getLeftHandSide(), operands);
+            collectConcatenationOperands(additive.getRightHandSide(), operands);
+        } else {
+            operands.add(expression);
+        }
+    }
+
+    private static boolean isConcatenation(Expression expression) {
+        return expression instanceof AdditiveExpression && expression.getType().equals(CatscriptType.STRING);
+    }
+
     @Override
     public String toString() {
         return super.toString() + "[" + operator.getStringValue() + "]";
@@ -68,9 +105,18 @@ public class AdditiveExpression extends Expression {
     public Object evaluate(CatscriptRuntime runtime) {
         // handled via 4/4/22 lecture
         if (getType().equals(CatscriptType.STRING)) {
-            String lhs = String.valueOf(leftHandSide.evaluate(runtime));
-            String rhs = String.valueOf(rightHandSide.evaluate(runtime));
-            return lhs + rhs;
+            List<Expression> operands = getConcatenationOperands();
+            String[] values = new String[operands.size()];
+            int length = 0;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = String.valueOf(operands.get(i).evaluate(runtime));
+                length += values[i].length();
+            }
+            StringBuilder builder = new StringBuilder(length);
+            for (String value : values) {
+                builder.append(value);
+            }
+            return builder.toString();
         } else {
             Integer lhsValue = (Integer) leftHandSide.evaluate(runtime);
             Integer rhsValue = (Integer) rightHandSide.evaluate(runtime);
@@ -91,6 +137,10 @@ public class AdditiveExpression extends Expression {
 
     @Override
     public void compile(ByteCodeGenerator code) {
+        if (getType().equals(CatscriptType.STRING)) {
+            compileConcatenation(code);
+            return;
+        }
         getLeftHandSide().compile(code);
         getRightHandSide().compile(code);
         if (isAdd()) {
@@ -100,4 +150,40 @@ public class AdditiveExpression extends Expression {
         }
     }
 
+    private void compileConcatenation(ByteCodeGenerator code) {
+        List<Expression> operands = getConcatenationOperands();
+        if (operands.size() > ByteCodeGenerator.MAX_CONCAT_ARGUMENTS) {
+            compileBuilderConcatenation(code, operands);
+            return;
+        }
+        // string literals become constants of the recipe, everything else an argument
+        StringBuilder recipe = new StringBuilder();
+        StringBuilder descriptors = new StringBuilder();
+        for (Expression operand : operands) {
+            String constant = operand instanceof StringLiteralExpression ?
+                    ((StringLiteralExpression) operand).getValue() : null;
+            if (constant != null && constant.indexOf('\u0001') < 0 && constant.indexOf('\u0002') < 0) {
+                recipe.append(constant);
+            } else {
+                operand.compile(code);
+                recipe.append('\u0001');
+                descriptors.append(stringConversionDescriptorFor(operand.getType()));
+            }
+        }
+        code.addStringConcatenation(recipe.toString(), descriptors.toString());
+    }
+
+    private void compileBuilderConcatenation(ByteCodeGenerator code, List<Expression> operands) {
+        String builder = internalNameFor(StringBuilder.class);
+        code.addTypeInstruction(Opcodes.NEW, builder);
+        code.addInstruction(Opcodes.DUP);
+        code.addMethodInstruction(Opcodes.INVOKESPECIAL, builder, "<init>", "()V");
+        for (Expression operand : operands) {
+            operand.compile(code);
+            code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, builder, "append",
+                    "(" + stringConversionDescriptorFor(operand.getType()) + ")Ljava/lang/StringBuilder;");
+        }
+        code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, builder, "toString", "()Ljava/lang/String;");
+    }
+
 }
@@ -4,6 +4,7 @@ import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
+import org.objectweb.asm.Opcodes;
 
 public class BooleanLiteralExpression extends Expression {
     private final boolean booleanValue;
@@ -35,12 +36,16 @@ public class BooleanLiteralExpression extends Expression {
 
     @Override
     public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+        javascript.append(booleanValue);
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        if (booleanValue) {
+            code.addInstruction(Opcodes.ICONST_1);
+        } else {
+            code.addInstruction(Opcodes.ICONST_0);
+        }
     }
 
 }
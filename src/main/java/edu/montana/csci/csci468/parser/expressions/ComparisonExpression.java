@@ -7,6 +7,8 @@ import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.tokenizer.Token;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
 
 import static edu.montana.csci.csci468.tokenizer.TokenType.*;
 
@@ -30,6 +32,10 @@ public class ComparisonExpression extends Expression {
         return rightHandSide;
     }
 
+    public Token getOperator() {
+        return operator;
+    }
+
     @Override
     public String toString() {
         return super.toString() + "[" + operator.getStringValue() + "]";
@@ -91,7 +97,23 @@ public class ComparisonExpression extends Expression {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        compileBooleanFromJump(code);
+    }
+
+    @Override
+    public void compileJumpIfFalse(ByteCodeGenerator code, Label falseLabel) {
+        leftHandSide.compile(code);
+        rightHandSide.compile(code);
+        // jump on the negated comparison
+        if (isGreater()) {
+            code.addJumpInstruction(Opcodes.IF_ICMPLE, falseLabel);
+        } else if (isGreaterThanOrEqual()) {
+            code.addJumpInstruction(Opcodes.IF_ICMPLT, falseLabel);
+        } else if (isLessThanOrEqual()) {
+            code.addJumpInstruction(Opcodes.IF_ICMPGT, falseLabel);
+        } else {
+            code.addJumpInstruction(Opcodes.IF_ICMPGE, falseLabel);
+        }
     }
 
 }
@@ -6,9 +6,13 @@ import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.tokenizer.Token;
 import edu.montana.csci.csci468.tokenizer.TokenType;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
 
 import java.util.Objects;
 
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
+
 public class EqualityExpression extends Expression {
 
     private final Token operator;
@@ -29,6 +33,10 @@ public class EqualityExpression extends Expression {
         return rightHandSide;
     }
 
+    public Token getOperator() {
+        return operator;
+    }
+
     @Override
     public String toString() {
         return super.toString() + "[" + operator.getStringValue() + "]";
@@ -55,10 +63,12 @@ public class EqualityExpression extends Expression {
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
+        // compare by value, boxed integers outside of the Integer cache are distinct objects
+        boolean equal = Objects.equals(leftHandSide.evaluate(runtime), rightHandSide.evaluate(runtime));
         if (isEqual()) {
-            return leftHandSide.evaluate(runtime) == rightHandSide.evaluate(runtime);
+            return equal;
         } else {
-            return leftHandSide.evaluate(runtime) != rightHandSide.evaluate(runtime);
+            return !equal;
         }
     }
 
@@ -69,7 +79,23 @@ public class EqualityExpression extends Expression {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        compileBooleanFromJump(code);
+    }
+
+    @Override
+    public void compileJumpIfFalse(ByteCodeGenerator code, Label falseLabel) {
+        leftHandSide.compile(code);
+        if (isPrimitive(leftHandSide.getType()) && leftHandSide.getType().equals(rightHandSide.getType())) {
+            rightHandSide.compile(code);
+            code.addJumpInstruction(isEqual() ? Opcodes.IF_ICMPNE : Opcodes.IF_ICMPEQ, falseLabel);
+        } else {
+            box(code, leftHandSide.getType());
+            rightHandSide.compile(code);
+            box(code, rightHandSide.getType());
+            code.addMethodInstruction(Opcodes.INVOKESTATIC, internalNameFor(Objects.class),
+                    "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z");
+            code.addJumpInstruction(isEqual() ? Opcodes.IFEQ : Opcodes.IFNE, falseLabel);
+        }
     }
 
 
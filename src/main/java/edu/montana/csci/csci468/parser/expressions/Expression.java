@@ -4,6 +4,8 @@ import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ParseElement;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
 
 public abstract class Expression extends ParseElement {
 
@@ -22,5 +24,25 @@ public abstract class Expression extends ParseElement {
         throw new UnsupportedOperationException("compile needs to be implemented for " + this.getClass().getName());
     }
 
+    // compiles a boolean expression as a jump to falseLabel when it is false, falling
+    // through otherwise.  Comparisons override this to branch directly on their operands
+    // instead of materializing a boolean first.
+    public void compileJumpIfFalse(ByteCodeGenerator code, Label falseLabel) {
+        compile(code);
+        code.addJumpInstruction(Opcodes.IFEQ, falseLabel);
+    }
+
+    // materializes the outcome of compileJumpIfFalse as 1 or 0
+    protected void compileBooleanFromJump(ByteCodeGenerator code) {
+        Label falseLabel = new Label();
+        Label end = new Label();
+        compileJumpIfFalse(code, falseLabel);
+        code.addInstruction(Opcodes.ICONST_1);
+        code.addJumpInstruction(Opcodes.GOTO, end);
+        code.addLabel(falseLabel);
+        code.addInstruction(Opcodes.ICONST_0);
+        code.addLabel(end);
+    }
+
     public abstract CatscriptType getType();
 }
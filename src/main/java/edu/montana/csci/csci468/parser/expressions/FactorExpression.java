@@ -8,6 +8,7 @@ import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.tokenizer.Token;
 import edu.montana.csci.csci468.tokenizer.TokenType;
+import org.objectweb.asm.Opcodes;
 
 public class FactorExpression extends Expression {
 
@@ -29,6 +30,10 @@ public class FactorExpression extends Expression {
         return rightHandSide;
     }
 
+    public Token getOperator() {
+        return operator;
+    }
+
     public boolean isMultiply() {
         return operator.getType() == TokenType.STAR;
     }
@@ -77,7 +82,13 @@ public class FactorExpression extends Expression {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        leftHandSide.compile(code);
+        rightHandSide.compile(code);
+        if (isMultiply()) {
+            code.addInstruction(Opcodes.IMUL);
+        } else {
+            code.addInstruction(Opcodes.IDIV);
+        }
     }
 
 
@@ -7,6 +7,7 @@ import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
+import org.objectweb.asm.Opcodes;
 
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -82,7 +83,14 @@ public class FunctionCallExpression extends Expression {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        FunctionDefinitionStatement function = getProgram().getFunction(name);
+        code.addVarInstruction(Opcodes.ALOAD, 0);
+        for (int i = 0; i < arguments.size(); i++) {
+            Expression argument = arguments.get(i);
+            argument.compile(code);
+            coerce(code, argument.getType(), function.getParameterType(i));
+        }
+        code.addFunctionCall(function.getMethodName(), function.getDescriptor());
     }
 
 
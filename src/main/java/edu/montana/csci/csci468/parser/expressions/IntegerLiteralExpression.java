@@ -40,7 +40,12 @@ public class IntegerLiteralExpression extends Expression {
 
     @Override
     public void transpile(StringBuilder javascript) {
-        javascript.append(integerVal);
+        // folded literals may be negative, keep them from merging with a preceding minus
+        if (integerVal < 0) {
+            javascript.append("(").append(integerVal).append(")");
+        } else {
+            javascript.append(integerVal);
+        }
     }
 
     @Override
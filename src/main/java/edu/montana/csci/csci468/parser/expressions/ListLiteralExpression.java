@@ -2,12 +2,18 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.IntList;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
+import org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
+
 public class ListLiteralExpression extends Expression {
     List<Expression> values;
     private CatscriptType type;
@@ -29,37 +35,74 @@ public class ListLiteralExpression extends Expression {
             value.validate(symbolTable);
         }
         if (values.size() > 0) {
-            // inferred type set to NULL since we can assign NULL to anything.
-            CatscriptType inferType = CatscriptType.NULL;
+            // the component type holds every value, so a list<int> or list<bool> never holds
+            // anything that can't be unboxed
+            CatscriptType inferType = values.get(0).getType();
             for (Expression value : values) {
-                // get the value of the componenentType
-                CatscriptType componentType = value.getType();
-                // not assignable to the NULL type.
-                if (!inferType.isAssignableFrom(componentType)) {
-                    if (inferType == CatscriptType.NULL) {
-                        inferType = componentType;
-                    } else {
-                        inferType = CatscriptType.OBJECT;
-                    }
-                }
+                inferType = commonType(inferType, value.getType());
             }
-            type = CatscriptType.getListType(values.get(0).getType());
+            type = CatscriptType.getListType(inferType);
         } else {
             type = CatscriptType.getListType(CatscriptType.OBJECT);
         }
     }
 
+    private static CatscriptType commonType(CatscriptType first, CatscriptType second) {
+        if (first.equals(second)) {
+            return first;
+        }
+        // nulls fit in any list but one of ints or bools
+        if (first == CatscriptType.NULL) {
+            return isPrimitive(second) ? CatscriptType.OBJECT : second;
+        }
+        if (second == CatscriptType.NULL) {
+            return isPrimitive(first) ? CatscriptType.OBJECT : first;
+        }
+        if (first.isAssignableFrom(second)) {
+            return first;
+        }
+        if (second.isAssignableFrom(first)) {
+            return second;
+        }
+        return CatscriptType.OBJECT;
+    }
+
     @Override
     public CatscriptType getType() {
         return type;
     }
 
+    // lists whose values are all ints or all bools are stored unboxed in an IntList
+    public boolean isUnboxed() {
+        CatscriptType componentType = ((CatscriptType.ListType) type).getComponentType();
+        if (values.isEmpty() || !isPrimitive(componentType)) {
+            return false;
+        }
+        for (Expression value : values) {
+            if (!componentType.equals(value.getType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBooleans() {
+        return ((CatscriptType.ListType) type).getComponentType().equals(CatscriptType.BOOLEAN);
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
+        if (isUnboxed()) {
+            IntList list = new IntList(isBooleans());
+            for (Expression value : values) {
+                list.add(value.evaluate(runtime));
+            }
+            return list;
+        }
         // passess literalExpressionsEvaluatesProperly() test
         LinkedList list = new LinkedList();
         for (Expression value : values) {
@@ -75,7 +118,34 @@ public class ListLiteralExpression extends Expression {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        if (isUnboxed()) {
+            // new IntList(new int[]{...}, booleans)
+            code.addTypeInstruction(Opcodes.NEW, internalNameFor(IntList.class));
+            code.addInstruction(Opcodes.DUP);
+            code.pushConstantOntoStack(values.size());
+            code.addIntInstruction(Opcodes.NEWARRAY, Opcodes.T_INT);
+            for (int i = 0; i < values.size(); i++) {
+                code.addInstruction(Opcodes.DUP);
+                code.pushConstantOntoStack(i);
+                values.get(i).compile(code);
+                code.addInstruction(Opcodes.IASTORE);
+            }
+            code.addInstruction(isBooleans() ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
+            code.addMethodInstruction(Opcodes.INVOKESPECIAL, internalNameFor(IntList.class), "<init>", "([IZ)V");
+            return;
+        }
+        code.addTypeInstruction(Opcodes.NEW, internalNameFor(ArrayList.class));
+        code.addInstruction(Opcodes.DUP);
+        code.pushConstantOntoStack(values.size());
+        code.addMethodInstruction(Opcodes.INVOKESPECIAL, internalNameFor(ArrayList.class), "<init>", "(I)V");
+        for (Expression value : values) {
+            code.addInstruction(Opcodes.DUP);
+            value.compile(code);
+            box(code, value.getType());
+            code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(ArrayList.class),
+                    "add", "(Ljava/lang/Object;)Z");
+            code.addInstruction(Opcodes.POP);
+        }
     }
 
 
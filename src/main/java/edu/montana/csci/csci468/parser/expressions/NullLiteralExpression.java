@@ -26,12 +26,12 @@ public class NullLiteralExpression extends Expression {
 
     @Override
     public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+        javascript.append("null");
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        code.pushConstantOntoStack(null);
     }
 
 
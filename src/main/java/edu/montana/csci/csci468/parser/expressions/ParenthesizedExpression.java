@@ -6,6 +6,7 @@ import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.tokenizer.TokenType;
+import org.objectweb.asm.Label;
 
 public class ParenthesizedExpression extends Expression {
 
@@ -50,4 +51,9 @@ public class ParenthesizedExpression extends Expression {
         expression.compile(code);
     }
 
+    @Override
+    public void compileJumpIfFalse(ByteCodeGenerator code, Label falseLabel) {
+        expression.compileJumpIfFalse(code, falseLabel);
+    }
+
 }
@@ -37,12 +37,22 @@ public class StringLiteralExpression extends Expression {
 
     @Override
     public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+        javascript.append('"');
+        for (char c : stringValue.toCharArray()) {
+            if (c == '\n') {
+                javascript.append("\\n");
+            } else if (c == '"' || c == '\\') {
+                javascript.append('\\').append(c);
+            } else {
+                javascript.append(c);
+            }
+        }
+        javascript.append('"');
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        code.pushConstantOntoStack(stringValue);
     }
 
 
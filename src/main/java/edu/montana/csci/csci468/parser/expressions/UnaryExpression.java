@@ -8,6 +8,7 @@ import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.tokenizer.Token;
 import edu.montana.csci.csci468.tokenizer.TokenType;
+import org.objectweb.asm.Opcodes;
 
 public class UnaryExpression extends Expression {
 
@@ -23,6 +24,10 @@ public class UnaryExpression extends Expression {
         return rightHandSide;
     }
 
+    public Token getOperator() {
+        return operator;
+    }
+
     public boolean isMinus() {
         return operator.getType().equals(TokenType.MINUS);
     }
@@ -80,7 +85,13 @@ public class UnaryExpression extends Expression {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        rightHandSide.compile(code);
+        if (isMinus()) {
+            code.addInstruction(Opcodes.INEG);
+        } else {
+            code.addInstruction(Opcodes.ICONST_1);
+            code.addInstruction(Opcodes.IXOR);
+        }
     }
 
 
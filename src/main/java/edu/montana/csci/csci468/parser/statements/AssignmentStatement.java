@@ -7,10 +7,12 @@ import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import org.objectweb.asm.Opcodes;
 
 public class AssignmentStatement extends Statement {
     private Expression expression;
     private String variableName;
+    private CatscriptType type;
 
     public Expression getExpression() {
         return expression;
@@ -35,6 +37,7 @@ public class AssignmentStatement extends Statement {
         if (symbolType == null) {
             addError(ErrorType.UNKNOWN_NAME);
         } else {
+            type = symbolType;
             if (!symbolType.isAssignableFrom(expression.getType())) {
                 addError(ErrorType.INCOMPATIBLE_TYPES);
             }
@@ -57,6 +60,16 @@ public class AssignmentStatement extends Statement {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        Integer slot = code.resolveLocalStorageSlotFor(variableName);
+        if (slot == null) {
+            code.addVarInstruction(Opcodes.ALOAD, 0);
+            expression.compile(code);
+            coerce(code, expression.getType(), type);
+            code.addGlobalFieldInstruction(Opcodes.PUTFIELD, variableName, descriptorFor(type));
+        } else {
+            expression.compile(code);
+            coerce(code, expression.getType(), type);
+            code.addVarInstruction(isPrimitive(type) ? Opcodes.ISTORE : Opcodes.ASTORE, slot);
+        }
     }
 }
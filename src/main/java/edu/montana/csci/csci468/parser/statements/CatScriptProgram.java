@@ -2,6 +2,7 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.OutputSink;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
@@ -12,21 +13,32 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
-
 public class CatScriptProgram extends Statement {
 
-    private StringBuffer output = new StringBuffer();
+    private OutputSink output = OutputSink.buffer();
     private List<Statement> statements = new LinkedList<>();
     private Map<String, FunctionDefinitionStatement> functions = new HashMap<>();
     private Expression expression;
 
     public void print(Object v) {
-        output.append(v).append("\n");
+        output.print(v);
+    }
+
+    // where execute() prints to, set before running to stream the output
+    public void setOutput(OutputSink output) {
+        this.output = output;
+    }
+
+    public OutputSink getOutputSink() {
+        return output;
     }
 
     public String getOutput(){
-        return output.toString();
+        return output.getOutput();
+    }
+
+    public long getOutputLength() {
+        return output.length();
     }
 
     public void addStatement(Statement child) {
@@ -69,8 +81,12 @@ public class CatScriptProgram extends Statement {
         }
     }
 
+    // runs the program, printing to the output set with setOutput(), by default kept for
+    // getOutput().  Convenient for a program that is only used by one thread, shared programs
+    // are run with a runtime per execution.
     public void execute() {
-        execute(new CatscriptRuntime());
+        execute(new CatscriptRuntime(output));
+        output.flush();
     }
 
     //==============================================================
@@ -79,7 +95,7 @@ public class CatScriptProgram extends Statement {
     @Override
     public void execute(CatscriptRuntime runtime) {
         if (expression != null) {
-            print(expression.evaluate(runtime));
+            runtime.print(expression.evaluate(runtime));
         } else {
             for (Statement statement : statements) {
                 statement.execute(runtime);
@@ -106,7 +122,7 @@ public class CatScriptProgram extends Statement {
             code.addVarInstruction(Opcodes.ALOAD, 0);
             getExpression().compile(code);
             box(code, getExpression().getType());
-            code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(CatScriptProgram.class),
+            code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, code.getProgramInternalName(),
                     "print", "(Ljava/lang/Object;)V");
             code.addInstruction(Opcodes.RETURN);
         } else {
@@ -2,14 +2,22 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.IntList;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import edu.montana.csci.csci468.parser.expressions.ListLiteralExpression;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.RandomAccess;
+
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
 
 public class ForStatement extends Statement {
     private Expression expression;
@@ -76,7 +84,7 @@ public class ForStatement extends Statement {
         Iterable evaluate = (Iterable) expression.evaluate(runtime);
         for (Object loopVariableValue : evaluate) {
             runtime.pushScope();
-            runtime.setValue(variableName, loopVariableValue);
+            runtime.declareValue(variableName, loopVariableValue);
             for (Statement statement: body) {
                 statement.execute(runtime);
             }
@@ -91,7 +99,92 @@ public class ForStatement extends Statement {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        if (isPrimitive(getComponentType())) {
+            compileIntLoop(code);
+            return;
+        }
+        expression.compile(code);
+        // the list, the index and the loop variable are all freed after the loop
+        code.pushScope();
+        int listSlot = code.nextLocalStorageSlot();
+        code.addVarInstruction(Opcodes.ASTORE, listSlot);
+        int variableSlot = code.createLocalStorageSlotFor(variableName);
+        Label loop = new Label();
+        Label end = new Label();
+        if (!(expression instanceof ListLiteralExpression)) {
+            // every CatScript list is an ArrayList or an IntList, anything else is copied once so
+            // the loop can always walk it by index
+            Label randomAccess = new Label();
+            code.addVarInstruction(Opcodes.ALOAD, listSlot);
+            code.addTypeInstruction(Opcodes.INSTANCEOF, internalNameFor(RandomAccess.class));
+            code.addJumpInstruction(Opcodes.IFNE, randomAccess);
+            code.addTypeInstruction(Opcodes.NEW, internalNameFor(ArrayList.class));
+            code.addInstruction(Opcodes.DUP);
+            code.addVarInstruction(Opcodes.ALOAD, listSlot);
+            code.addMethodInstruction(Opcodes.INVOKESPECIAL, internalNameFor(ArrayList.class), "<init>", "(Ljava/util/Collection;)V");
+            code.addVarInstruction(Opcodes.ASTORE, listSlot);
+            code.addLabel(randomAccess);
+        }
+        int indexSlot = code.nextLocalStorageSlot();
+        code.addInstruction(Opcodes.ICONST_0);
+        code.addVarInstruction(Opcodes.ISTORE, indexSlot);
+        code.addLabel(loop);
+        code.addVarInstruction(Opcodes.ILOAD, indexSlot);
+        code.addVarInstruction(Opcodes.ALOAD, listSlot);
+        code.addMethodInstruction(Opcodes.INVOKEINTERFACE, internalNameFor(List.class), "size", "()I");
+        code.addJumpInstruction(Opcodes.IF_ICMPGE, end);
+        code.addVarInstruction(Opcodes.ALOAD, listSlot);
+        code.addVarInstruction(Opcodes.ILOAD, indexSlot);
+        code.addMethodInstruction(Opcodes.INVOKEINTERFACE, internalNameFor(List.class), "get", "(I)Ljava/lang/Object;");
+        code.addIincInstruction(indexSlot, 1);
+        CatscriptType componentType = getComponentType();
+        coerce(code, CatscriptType.OBJECT, componentType);
+        code.addVarInstruction(isPrimitive(componentType) ? Opcodes.ISTORE : Opcodes.ASTORE, variableSlot);
+        for (Statement statement : body) {
+            statement.compile(code);
+        }
+        code.addJumpInstruction(Opcodes.GOTO, loop);
+        code.addLabel(end);
+        code.popScope();
+    }
+
+    // list<int> and list<bool> are IntLists, walk their backing array
+    private void compileIntLoop(ByteCodeGenerator code) {
+        String intList = internalNameFor(IntList.class);
+        expression.compile(code);
+        if (!(expression instanceof ListLiteralExpression && ((ListLiteralExpression) expression).isUnboxed())) {
+            // a list<int> or list<bool> made by CatScript already is one (only literals of nothing
+            // but ints or bools get those types), from() only copies lists handed in from Java
+            code.addInstruction(getComponentType().equals(CatscriptType.BOOLEAN) ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
+            code.addMethodInstruction(Opcodes.INVOKESTATIC, intList, "from", "(Ljava/util/List;Z)L" + intList + ";");
+        }
+        code.pushScope();
+        int arraySlot = code.nextLocalStorageSlot();
+        int indexSlot = code.nextLocalStorageSlot();
+        int variableSlot = code.createLocalStorageSlotFor(variableName);
+        // CatScript cannot change a list, so the array is read once
+        code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, intList, "elements", "()[I");
+        code.addVarInstruction(Opcodes.ASTORE, arraySlot);
+        code.addInstruction(Opcodes.ICONST_0);
+        code.addVarInstruction(Opcodes.ISTORE, indexSlot);
+        Label loop = new Label();
+        Label end = new Label();
+        code.addLabel(loop);
+        code.addVarInstruction(Opcodes.ILOAD, indexSlot);
+        code.addVarInstruction(Opcodes.ALOAD, arraySlot);
+        code.addInstruction(Opcodes.ARRAYLENGTH);
+        code.addJumpInstruction(Opcodes.IF_ICMPGE, end);
+        code.addVarInstruction(Opcodes.ALOAD, arraySlot);
+        code.addVarInstruction(Opcodes.ILOAD, indexSlot);
+        code.addInstruction(Opcodes.IALOAD);
+        code.addVarInstruction(Opcodes.ISTORE, variableSlot);
+        code.addIincInstruction(indexSlot, 1);
+        for (Statement statement : body) {
+            statement.compile(code);
+        }
+        code.addJumpInstruction(Opcodes.GOTO, loop);
+        code.addLabel(end);
+        code.popScope();
     }
 
 }
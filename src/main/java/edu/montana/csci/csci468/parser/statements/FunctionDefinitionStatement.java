@@ -8,13 +8,12 @@ import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.TypeLiteral;
+import org.objectweb.asm.Opcodes;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
-import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
-
 public class FunctionDefinitionStatement extends Statement {
     private String name;
     private CatscriptType type;
@@ -97,15 +96,29 @@ public class FunctionDefinitionStatement extends Statement {
         }
     }
 
+    // every path through the statements ends in a return: one of them returns, or is an if whose
+    // branches both do
     private boolean validateReturnCoverage(List<Statement> statements) {
-        return true;
+        for (Statement statement : statements) {
+            if (statement instanceof ReturnStatement) {
+                return true;
+            }
+            if (statement instanceof IfStatement) {
+                IfStatement ifStatement = (IfStatement) statement;
+                if (validateReturnCoverage(ifStatement.getTrueStatements()) &&
+                        validateReturnCoverage(ifStatement.getElseStatements())) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     public Object invoke(CatscriptRuntime runtime, List<Object> args) {
-        runtime.pushScope();
+        runtime.pushFrame();
         int parameterCount = getParameterCount();
         for (int i = 0; i < parameterCount; i++) {
-            runtime.setValue(getParameterName(i), args.get(i));
+            runtime.declareValue(getParameterName(i), args.get(i));
         }
         Object returnVal = null;
         try {
@@ -115,7 +128,7 @@ public class FunctionDefinitionStatement extends Statement {
         } catch (ReturnException re) {
             returnVal = re.getValue();
         } finally {
-            runtime.popScope();
+            runtime.popFrame();
         }
         return returnVal;
     }
@@ -123,23 +136,22 @@ public class FunctionDefinitionStatement extends Statement {
     public String getDescriptor() {
         StringBuilder sb = new StringBuilder("(");
         for (CatscriptType argumentType : argumentTypes) {
-            if (argumentType.equals(CatscriptType.BOOLEAN) || argumentType.equals(CatscriptType.INT)) {
-                sb.append("I");
-            } else {
-                sb.append("L").append(internalNameFor(getType().getJavaType())).append(";");
-            }
+            sb.append(descriptorFor(argumentType));
         }
         sb.append(")");
         if (type.equals(CatscriptType.VOID)) {
             sb.append("V");
-        } else if (type.equals(CatscriptType.BOOLEAN) || type.equals(CatscriptType.INT)) {
-            sb.append("I");
         } else {
-            sb.append("L").append(internalNameFor(getType().getJavaType())).append(";");
+            sb.append(descriptorFor(type));
         }
         return sb.toString();
     }
 
+    // prefixed so that user functions never override methods of CatScriptProgram
+    public String getMethodName() {
+        return "fn$" + name;
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
@@ -156,6 +168,30 @@ public class FunctionDefinitionStatement extends Statement {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        code.addFunction(this);
+    }
+
+    // emits the function method into whichever class code is generating
+    public void compileFunction(ByteCodeGenerator code) {
+        code.pushFunction(getMethodName(), getDescriptor());
+        // parameters occupy the slots right after this, in order
+        for (String argumentName : argumentNames) {
+            code.createLocalStorageSlotFor(argumentName);
+        }
+        for (Statement statement : body) {
+            statement.compile(code);
+        }
+        // the verifier makes every path of a non void function return, so only a void function
+        // can get here, the other returns just give the method an ending
+        if (type.equals(CatscriptType.VOID)) {
+            code.addInstruction(Opcodes.RETURN);
+        } else if (isPrimitive(type)) {
+            code.addInstruction(Opcodes.ICONST_0);
+            code.addInstruction(Opcodes.IRETURN);
+        } else {
+            code.addInstruction(Opcodes.ACONST_NULL);
+            code.addInstruction(Opcodes.ARETURN);
+        }
+        code.popMethod();
     }
 }
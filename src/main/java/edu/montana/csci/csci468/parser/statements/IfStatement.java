@@ -7,6 +7,8 @@ import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
 
 import java.util.Collections;
 import java.util.LinkedList;
@@ -91,6 +93,21 @@ public class IfStatement extends Statement {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        Label elseLabel = new Label();
+        Label end = new Label();
+        expression.compileJumpIfFalse(code, elseLabel);
+        code.pushScope();
+        for (Statement trueStatement : trueStatements) {
+            trueStatement.compile(code);
+        }
+        code.popScope();
+        code.addJumpInstruction(Opcodes.GOTO, end);
+        code.addLabel(elseLabel);
+        code.pushScope();
+        for (Statement elseStatement : elseStatements) {
+            elseStatement.compile(code);
+        }
+        code.popScope();
+        code.addLabel(end);
     }
 }
@@ -4,6 +4,7 @@ import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import org.objectweb.asm.Opcodes;
 
 public class PrintStatement extends Statement {
     private Expression expression;
@@ -27,7 +28,7 @@ public class PrintStatement extends Statement {
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
-        getProgram().print(expression.evaluate(runtime));
+        runtime.print(expression.evaluate(runtime));
     }
 
     @Override
@@ -37,7 +38,14 @@ public class PrintStatement extends Statement {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        code.addVarInstruction(Opcodes.ALOAD, 0);
+        expression.compile(code);
+        if (isPrimitive(expression.getType())) {
+            // convert straight to a String instead of boxing
+            code.addStringConcatenation("\u0001", stringConversionDescriptorFor(expression.getType()));
+        }
+        code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, code.getProgramInternalName(),
+                "print", "(Ljava/lang/Object;)V");
     }
 
 }
@@ -8,6 +8,7 @@ import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import org.objectweb.asm.Opcodes;
 
 public class ReturnStatement extends Statement {
     private Expression expression;
@@ -21,6 +22,10 @@ public class ReturnStatement extends Statement {
         this.function = func;
     }
 
+    public FunctionDefinitionStatement getFunctionDefinition() {
+        return function;
+    }
+
     public Expression getExpression() {
         return expression;
     }
@@ -59,7 +64,17 @@ public class ReturnStatement extends Statement {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        if (expression == null) {
+            code.addInstruction(Opcodes.RETURN);
+        } else {
+            expression.compile(code);
+            coerce(code, expression.getType(), function.getType());
+            if (isPrimitive(function.getType())) {
+                code.addInstruction(Opcodes.IRETURN);
+            } else {
+                code.addInstruction(Opcodes.ARETURN);
+            }
+        }
     }
 
 }
\ No newline at end of file
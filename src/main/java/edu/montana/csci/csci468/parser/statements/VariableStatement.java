@@ -7,6 +7,7 @@ import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import org.objectweb.asm.Opcodes;
 
 public class VariableStatement extends Statement {
     private Expression expression;
@@ -71,7 +72,7 @@ public class VariableStatement extends Statement {
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
-        runtime.setValue(variableName, expression.evaluate(runtime));
+        runtime.declareValue(variableName, expression.evaluate(runtime));
     }
 
     @Override
@@ -81,6 +82,18 @@ public class VariableStatement extends Statement {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        if (isGlobal()) {
+            // globals become fields so that function methods can reach them
+            code.addField(variableName, descriptorFor(type));
+            code.addVarInstruction(Opcodes.ALOAD, 0);
+            expression.compile(code);
+            coerce(code, expression.getType(), type);
+            code.addGlobalFieldInstruction(Opcodes.PUTFIELD, variableName, descriptorFor(type));
+        } else {
+            expression.compile(code);
+            coerce(code, expression.getType(), type);
+            int slot = code.createLocalStorageSlotFor(variableName);
+            code.addVarInstruction(isPrimitive(type) ? Opcodes.ISTORE : Opcodes.ASTORE, slot);
+        }
     }
 }
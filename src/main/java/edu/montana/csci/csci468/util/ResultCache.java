@@ -0,0 +1,200 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.bytecode.CompiledClassCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Bounded, least recently used cache of whole responses.  CatScript programs read no input, so a
+// response only depends on the endpoint, its options and the source, and the key is a hash of
+// those.  Entries are bounded by count and by total bytes, responses larger than maxEntryBytes
+// are streamed to the client without being kept.
+public class ResultCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+    public static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    // part of every key, so a restarted (and maybe upgraded) server never vouches for an
+    // ETag handed out by an earlier one
+    private final String generation = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final LinkedHashMap<String, byte[]> results;
+    private long bytes;
+    private long hits;
+    private long notModified;
+    private long misses;
+    private long evictions;
+
+    public ResultCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    public ResultCache(int maxEntries, long maxBytes) {
+        this(maxEntries, maxBytes, (int) Math.min(Integer.MAX_VALUE, maxBytes / 8));
+    }
+
+    public ResultCache(int maxEntries, long maxBytes, int maxEntryBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.results = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public String keyFor(String source, String variant) {
+        return CompiledClassCache.keyFor(source, variant + "/" + generation);
+    }
+
+    // a strong ETag, the key itself: equal keys always mean byte for byte equal responses
+    public static String etagFor(String key) {
+        return "\"" + key + "\"";
+    }
+
+    // whether an If-None-Match header value matches the ETag of key
+    public static boolean matches(String ifNoneMatch, String key) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String etag = etagFor(key);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // whether key has a cached response, without counting a hit or miss or refreshing it
+    public synchronized boolean contains(String key) {
+        return results.containsKey(key);
+    }
+
+    public synchronized byte[] get(String key) {
+        byte[] result = results.get(key);
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    public synchronized void put(String key, byte[] result) {
+        if (result.length > maxEntryBytes) {
+            return;
+        }
+        byte[] previous = results.put(key, result);
+        if (previous != null) {
+            bytes -= previous.length;
+        }
+        bytes += result.length;
+        Iterator<Map.Entry<String, byte[]>> eldest = results.entrySet().iterator();
+        while (results.size() > maxEntries || bytes > maxBytes) {
+            bytes -= eldest.next().getValue().length;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    // a request answered with 304 Not Modified
+    public synchronized void countNotModified() {
+        notModified++;
+    }
+
+    // passes everything written on to target and keeps a copy while it fits in an entry
+    public Recorder record(OutputStream target) {
+        return new Recorder(target, maxEntryBytes);
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getNotModified() {
+        return notModified;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    // requests answered without running anything, over all requests
+    public synchronized double getHitRate() {
+        long requests = hits + notModified + misses;
+        return requests == 0 ? 0 : (double) (hits + notModified) / requests;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "size=" + results.size() + "/" + maxEntries + " bytes=" + bytes + "/" + maxBytes +
+                " hits=" + hits + " notModified=" + notModified + " misses=" + misses +
+                " evictions=" + evictions + String.format(" hitRate=%.3f", getHitRate());
+    }
+
+    public static class Recorder extends OutputStream {
+        private final OutputStream target;
+        private final int limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        Recorder(OutputStream target, int limit) {
+            this.target = target;
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            if (copy != null) {
+                copy.write(b);
+                checkLimit();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            if (copy != null) {
+                copy.write(b, off, len);
+                checkLimit();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        // everything written, or null if it grew too large to keep
+        public byte[] getBytes() {
+            return copy == null ? null : copy.toByteArray();
+        }
+
+        private void checkLimit() {
+            if (copy.size() > limit) {
+                copy = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package edu.montana.csci.csci468;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import spark.Spark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptServerTest {
+
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void startServer() {
+        CatScriptServer.main(new String[0]);
+        Spark.awaitInitialization();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    @Test
+    void runtimeErrorsBeforeAnyOutputWentOutAre500s() throws Exception {
+        for (String endpoint : new String[]{"evaluate", "compile"}) {
+            HttpResponse<String> response = get(endpoint, "print(\"partial\")\nprint(1/0)\n");
+            assertEquals(500, response.statusCode(), endpoint);
+            assertFalse(response.body().contains("partial"), endpoint);
+        }
+    }
+
+    @Test
+    void runtimeErrorsAfterOutputWentOutAbortTheResponse() throws Exception {
+        // far more output than the response buffers hold, so the 200 is sent before the error
+        String src = "var line = \"" + "x".repeat(1000) + "\"\n" +
+                "for (i in [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]) { for (j in [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]) { print(line) } }\n" +
+                "print(1/0)\n";
+        for (String endpoint : new String[]{"evaluate", "compile"}) {
+            // HttpClient drops what it has buffered when the connection fails, HttpURLConnection
+            // hands over everything that arrived before the missing last chunk
+            HttpURLConnection connection = (HttpURLConnection) request(endpoint, src).build().uri().toURL().openConnection();
+            assertEquals(200, connection.getResponseCode(), endpoint);
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream in = connection.getInputStream()) {
+                assertThrows(IOException.class, () -> in.transferTo(body), endpoint);
+            }
+            assertTrue(body.toString(StandardCharsets.UTF_8).endsWith("<pre>Error: java.lang.ArithmeticException: / by zero</pre>"), endpoint);
+        }
+    }
+
+    @Test
+    void successfulRunsAreStreamed() throws Exception {
+        for (String endpoint : new String[]{"evaluate", "compile"}) {
+            HttpResponse<String> response = get(endpoint, "print(\"hello\")\n");
+            assertEquals(200, response.statusCode(), endpoint);
+            assertEquals("hello\n", response.body(), endpoint);
+        }
+    }
+
+    @Test
+    void onlyCachedResponsesHaveETags() throws Exception {
+        String src = "print(\"etag\")\n";
+        HttpResponse<String> first = get("evaluate", src, "If-None-Match", "*");
+        assertEquals(200, first.statusCode());
+        assertTrue(first.headers().firstValue("ETag").isEmpty());
+
+        HttpResponse<String> cached = get("evaluate", src);
+        assertEquals("etag\n", cached.body());
+        String etag = cached.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> notModified = get("evaluate", src, "If-None-Match", etag);
+        assertEquals(304, notModified.statusCode());
+        assertEquals(etag, notModified.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    void failedRequestsAreNeverNotModified() throws Exception {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            HttpResponse<String> response = get("evaluate", "print(\"etag\")\nprint(1/0)\n", "If-None-Match", "*");
+            assertEquals(500, response.statusCode());
+            assertTrue(response.headers().firstValue("ETag").isEmpty());
+        }
+    }
+
+    private static HttpResponse<String> get(String endpoint, String src, String... headers) throws Exception {
+        HttpRequest.Builder request = request(endpoint, src);
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpRequest.Builder request(String endpoint, String src) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + Spark.port() + "/" +
+                endpoint + "?src=" + URLEncoder.encode(src, StandardCharsets.UTF_8)));
+    }
+}
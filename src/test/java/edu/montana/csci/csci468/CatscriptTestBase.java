@@ -3,6 +3,8 @@ package edu.montana.csci.csci468;
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
 import edu.montana.csci.csci468.js.JSTranspiler;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.optimizer.PassManager;
 import edu.montana.csci.csci468.parser.CatScriptParser;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -97,26 +99,40 @@ public class CatscriptTestBase {
     }
 
     protected Object executeProgram(String src) {
+        return executeProgram(src, OptimizationLevel.O0);
+    }
+
+    protected Object executeProgram(String src, OptimizationLevel level) {
+        final CatScriptProgram program = parseAndOptimize(src, level);
+        CatscriptRuntime runtime = new CatscriptRuntime();
+        program.execute(runtime);
+        return runtime.getOutput();
+    }
+
+    protected CatScriptProgram parseAndOptimize(String src, OptimizationLevel level) {
         final CatScriptParser parser = new CatScriptParser();
         final CatScriptProgram program = parser.parse(src);
         program.verify();
-        program.execute();
-        return program.getOutput();
+        return new PassManager(level).optimize(program);
     }
 
     protected String transpile(String src) {
-        final CatScriptParser parser = new CatScriptParser();
-        final CatScriptProgram program = parser.parse(src);
-        program.verify();
+        return transpile(src, OptimizationLevel.O0);
+    }
+
+    protected String transpile(String src, OptimizationLevel level) {
+        final CatScriptProgram program = parseAndOptimize(src, level);
         JSTranspiler jsTranspiler = new JSTranspiler(program);
         System.out.println(jsTranspiler.getJavascriptSource());
         return jsTranspiler.evaluate();
     }
 
     protected String compile(String src) {
-        final CatScriptParser parser = new CatScriptParser();
-        final CatScriptProgram program = parser.parse(src);
-        program.verify();
+        return compile(src, OptimizationLevel.O0);
+    }
+
+    protected String compile(String src, OptimizationLevel level) {
+        final CatScriptProgram program = parseAndOptimize(src, level);
         ByteCodeGenerator byteCodeGenerator = new ByteCodeGenerator(program);
         CatScriptProgram catScriptProgram = byteCodeGenerator.compileToBytecode();
         catScriptProgram.execute();
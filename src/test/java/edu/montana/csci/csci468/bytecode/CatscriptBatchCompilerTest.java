@@ -0,0 +1,137 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptBatchCompilerTest extends CatscriptTestBase {
+
+    private static final List<String> PROGRAMS = List.of(
+            "var x = 1\nfunction f(y : int) : int { return x + y }\nprint(f(1))\n",
+            "var x = \"a\"\nfunction f(y : string) : string { return x + y }\nprint(f(\"b\"))\n",
+            "var total = 0\nfor (i in [1, 2, 3]) { total = total + i }\nprint(total)\n",
+            "function count(n : int) : int { if (n == 0) { return 0 }\n return count(n - 1) + 1 }\nprint(count(4))\n",
+            "print([true, false])\n",
+            "var x = 1\nx = x + 41\nprint(x)\n",
+            "print(\"hello\")\n");
+
+    @Test
+    void batchedProgramsBehaveLikeSeparateOnes() {
+        List<String> outputs = compileAndRun(new BatchCompiler(CompileOptions.defaults().setVerify(true), 3));
+        for (int i = 0; i < PROGRAMS.size(); i++) {
+            assertEquals(executeProgram(PROGRAMS.get(i)), outputs.get(i), PROGRAMS.get(i));
+        }
+    }
+
+    @Test
+    void programsShareClasses() {
+        List<BatchCompiler.ProgramHandle> handles = new BatchCompiler(CompileOptions.defaults(), 3).compile(parseAll());
+        assertEquals(PROGRAMS.size(), handles.size());
+        assertEquals(3, handles.stream().map(handle -> handle.getBatchClass()).distinct().count());
+        assertEquals(1, handles.stream().map(handle -> handle.getBatchClass().getClassLoader()).distinct().count());
+        assertEquals(List.of(0, 1, 2, 0, 1, 2, 0),
+                handles.stream().map(handle -> handle.getIndex()).collect(Collectors.toList()));
+    }
+
+    @Test
+    void groupsCanBeGeneratedInParallel() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<String> outputs = compileAndRun(new BatchCompiler(CompileOptions.defaults().setCodegenExecutor(executor), 2));
+            for (int i = 0; i < PROGRAMS.size(); i++) {
+                assertEquals(executeProgram(PROGRAMS.get(i)), outputs.get(i));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void groupsTooLargeForOneClassAreSplit() {
+        // 128 programs of 300 distinct strings are more constants than one class can hold
+        List<String> sources = new ArrayList<>();
+        List<CatScriptProgram> programs = new ArrayList<>();
+        for (int i = 0; i < 128; i++) {
+            sources.add(printLines("p" + i + "_", 300));
+            programs.add(parseAndOptimize(sources.get(i), OptimizationLevel.O0));
+        }
+        List<BatchCompiler.ProgramHandle> handles = new BatchCompiler(CompileOptions.defaults(), 128).compile(programs);
+        assertEquals(programs.size(), handles.size());
+        assertTrue(handles.stream().map(handle -> handle.getBatchClass()).distinct().count() > 1);
+        for (int i = 0; i < handles.size(); i++) {
+            CatScriptProgram program = handles.get(i).newInstance();
+            program.execute();
+            assertEquals(sources.get(i).replaceAll("print\\(\"([^\"]*)\"\\)", "$1"), program.getOutput());
+        }
+    }
+
+    @Test
+    void programsTooLargeForABatchClassAreCompiledOnTheirOwn() {
+        // too many constants for one class, but its functions can be split off
+        StringBuilder src = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            src.append("function f").append(i).append("() {\n").append(printLines("f" + i + "_", 900)).append("}\n");
+        }
+        src.append("f0()\nf39()\n");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            BatchCompiler.ProgramHandle handle = new BatchCompiler(CompileOptions.defaults().setCodegenExecutor(executor))
+                    .compile(List.of(parseAndOptimize(src.toString(), OptimizationLevel.O0))).get(0);
+            CatScriptProgram program = handle.newInstance();
+            program.execute();
+            assertTrue(program.getOutput().startsWith("f0_0\nf0_1\n"));
+            assertTrue(program.getOutput().endsWith("f39_898\nf39_899\n"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void instancesAreIndependent() {
+        String src = "var x = 0\nx = x + 1\nprint(x)\n";
+        BatchCompiler.ProgramHandle handle = new BatchCompiler()
+                .compile(List.of(parseAndOptimize(src, OptimizationLevel.O0))).get(0);
+        CatScriptProgram first = handle.newInstance();
+        CatScriptProgram second = handle.newInstance();
+        first.execute();
+        first.execute();
+        second.execute();
+        assertEquals("1\n1\n", first.getOutput());
+        assertEquals("1\n", second.getOutput());
+    }
+
+    private static String printLines(String prefix, int count) {
+        StringBuilder src = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            src.append("print(\"").append(prefix).append(i).append("\")\n");
+        }
+        return src.toString();
+    }
+
+    private List<CatScriptProgram> parseAll() {
+        List<CatScriptProgram> programs = new ArrayList<>();
+        for (String program : PROGRAMS) {
+            programs.add(parseAndOptimize(program, OptimizationLevel.O1));
+        }
+        return programs;
+    }
+
+    private List<String> compileAndRun(BatchCompiler compiler) {
+        List<String> outputs = new ArrayList<>();
+        for (BatchCompiler.ProgramHandle handle : compiler.compile(parseAll())) {
+            CatScriptProgram program = handle.newInstance();
+            program.execute();
+            outputs.add(program.getOutput());
+        }
+        return outputs;
+    }
+}
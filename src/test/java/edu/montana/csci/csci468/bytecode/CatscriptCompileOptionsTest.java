@@ -0,0 +1,43 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptCompileOptionsTest extends CatscriptTestBase {
+
+    @Test
+    void disassemblyIsOffByDefault() {
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize("print(1)", OptimizationLevel.O0));
+        generator.compileToClass();
+        assertNull(generator.getDisassembly());
+        assertTrue(generator.getCompileNanos() > 0);
+    }
+
+    @Test
+    void disassemblyCanBeRequested() {
+        CompileOptions options = CompileOptions.defaults().setVerify(true).setDisassemble(true);
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize("print(1)", OptimizationLevel.O0), options);
+        generator.compileToClass();
+        assertTrue(generator.getDisassembly().contains("execute()V"));
+    }
+
+    @Test
+    void classesCanBeDumped(@TempDir Path directory) throws IOException {
+        CompileOptions options = CompileOptions.defaults().setDumpDirectory(directory);
+        new ByteCodeGenerator(parseAndOptimize("print(1)", OptimizationLevel.O0), options).compileToClass();
+        try (Stream<Path> files = Files.list(directory)) {
+            String names = files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.joining(","));
+            assertTrue(names.matches("CatScriptProgram\\d+\\.class,CatScriptProgram\\d+\\.txt"), names);
+        }
+    }
+}
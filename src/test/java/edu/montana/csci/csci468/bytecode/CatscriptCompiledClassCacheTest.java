@@ -0,0 +1,133 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.parser.ParseErrorException;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptCompiledClassCacheTest extends CatscriptTestBase {
+
+    @Test
+    void eachCompilationHasItsOwnClassLoader() {
+        Class<? extends CatScriptProgram> first = compileClass("print(1)");
+        Class<? extends CatScriptProgram> second = compileClass("print(1)");
+        assertNotSame(first.getClassLoader(), second.getClassLoader());
+        assertNotSame(first.getClassLoader(), ByteCodeGenerator.class.getClassLoader());
+    }
+
+    @Test
+    void cachedClassesAreReused() {
+        CompiledClassCache cache = new CompiledClassCache(4);
+        String key = CompiledClassCache.keyFor("print(1)", "O1");
+        Class<? extends CatScriptProgram> first = cache.computeIfAbsent(key, () -> compileClass("print(1)"));
+        Class<? extends CatScriptProgram> second = cache.computeIfAbsent(key, () -> fail("should be cached"));
+        assertSame(first, second);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        CatScriptProgram program = ByteCodeGenerator.newInstance(second);
+        program.execute();
+        assertEquals("1\n", program.getOutput());
+        // instances do not share output
+        assertEquals("", ByteCodeGenerator.newInstance(second).getOutput());
+    }
+
+    @Test
+    void keysDependOnSourceAndVariant() {
+        assertEquals(CompiledClassCache.keyFor("print(1)", "O1"), CompiledClassCache.keyFor("print(1)", "O1"));
+        assertNotEquals(CompiledClassCache.keyFor("print(1)", "O1"), CompiledClassCache.keyFor("print(2)", "O1"));
+        assertNotEquals(CompiledClassCache.keyFor("print(1)", "O1"), CompiledClassCache.keyFor("print(1)", "O2"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() {
+        CompiledClassCache cache = new CompiledClassCache(2);
+        cache.put("a", compileClass("print(1)"));
+        cache.put("b", compileClass("print(2)"));
+        assertNotNull(cache.get("a"));
+        cache.put("c", compileClass("print(3)"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    void concurrentMissesShareOneCompilation() throws Exception {
+        CompiledClassCache cache = new CompiledClassCache();
+        String key = CompiledClassCache.keyFor("print(1)", "O0");
+        AtomicInteger compilations = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Class<? extends CatScriptProgram>>> requests = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                requests.add(executor.submit(() -> cache.computeIfAbsent(key, () -> {
+                    compilations.incrementAndGet();
+                    // hold the compilation until every other request is waiting for it
+                    awaitCoalesced(cache, 7);
+                    return compileClass("print(1)");
+                })));
+            }
+            Class<? extends CatScriptProgram> first = requests.get(0).get();
+            for (Future<Class<? extends CatScriptProgram>> request : requests) {
+                assertSame(first, request.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, compilations.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(7, cache.getCoalesced());
+        assertSame(cache.get(key), cache.computeIfAbsent(key, () -> fail("should be cached")));
+    }
+
+    @Test
+    void failedCompilationsAreSharedButNotCached() throws Exception {
+        CompiledClassCache cache = new CompiledClassCache();
+        ParseErrorException parseError = assertThrows(ParseErrorException.class,
+                () -> parseAndOptimize("print(x)", OptimizationLevel.O0));
+        CountDownLatch compiling = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Class<? extends CatScriptProgram>> first = executor.submit(() -> cache.computeIfAbsent("key", () -> {
+                compiling.countDown();
+                awaitCoalesced(cache, 1);
+                throw parseError;
+            }));
+            compiling.await();
+            Future<Class<? extends CatScriptProgram>> second = executor.submit(() -> cache.computeIfAbsent("key",
+                    () -> fail("should wait for the first compilation")));
+            assertSame(parseError, assertThrows(ExecutionException.class, first::get).getCause());
+            assertSame(parseError, assertThrows(ExecutionException.class, second::get).getCause());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(0, cache.size());
+        assertNotNull(cache.computeIfAbsent("key", () -> compileClass("print(1)")));
+    }
+
+    private static void awaitCoalesced(CompiledClassCache cache, int waiting) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cache.getCoalesced() < waiting && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private Class<? extends CatScriptProgram> compileClass(String src) {
+        return new ByteCodeGenerator(parseAndOptimize(src, OptimizationLevel.O0)).compileToClass();
+    }
+}
@@ -0,0 +1,82 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.eval.OutputSink;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptCompiledProgramTest extends CatscriptTestBase {
+
+    private static final String PROGRAM = "var total = 0\n" +
+            "function add(x : int, y : int) : int { return x + y }\n" +
+            "for (i in [1, 2, 3]) { total = add(total, i) }\n" +
+            "print(total)\n";
+
+    @Test
+    void compiledProgramsCanBeRunRepeatedly() {
+        CompiledProgram program = new ByteCodeGenerator(parseAndOptimize(PROGRAM, OptimizationLevel.O0)).compile();
+        assertEquals("6\n", program.run());
+        assertEquals("6\n", program.run());
+    }
+
+    @Test
+    void executionsHaveTheirOwnState() {
+        CompiledProgram program = new ByteCodeGenerator(parseAndOptimize(PROGRAM, OptimizationLevel.O0)).compile();
+        CatScriptProgram first = program.newExecution();
+        CatScriptProgram second = program.newExecution();
+        assertNotSame(first, second);
+        first.execute();
+        assertEquals("6\n", first.getOutput());
+        assertEquals("", second.getOutput());
+    }
+
+    @Test
+    void failedRunsAreNotFlushed() {
+        CompiledProgram program = new ByteCodeGenerator(parseAndOptimize("print(\"partial\")\nprint(1/0)\n", OptimizationLevel.O1)).compile();
+        StringWriter writer = new StringWriter();
+        assertThrows(ArithmeticException.class, () -> program.run(OutputSink.to(writer)));
+        assertEquals("", writer.toString());
+    }
+
+    @Test
+    void thereIsOneCompiledProgramPerClass() {
+        Class<? extends CatScriptProgram> programClass =
+                new ByteCodeGenerator(parseAndOptimize(PROGRAM, OptimizationLevel.O0)).compileToClass();
+        assertSame(CompiledProgram.of(programClass), CompiledProgram.of(programClass));
+        assertSame(programClass, CompiledProgram.of(programClass).getProgramClass());
+    }
+
+    @Test
+    void compiledProgramsCanBeRunConcurrently() throws Exception {
+        CompiledProgram program = new ByteCodeGenerator(parseAndOptimize(PROGRAM, OptimizationLevel.O1)).compile();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> runs = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                runs.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        if (!program.run().equals("6\n")) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> run : runs) {
+                assertTrue(run.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CatscriptControlFlowCompileTest extends CatscriptTestBase {
+
+    @Test
+    void forStatementOverNonLiteralListWorksProperly() {
+        assertEquals("1\n2\n3\n", compile("function foo(l : list<int>) { for (x in l) { print(x) } }" +
+                "foo([1, 2, 3])"));
+        assertEquals("a\nb\n", compile("function foo(l : list<string>) { for (x in l) { print(x) } }" +
+                "foo([\"a\", \"b\"])"));
+    }
+
+    @Test
+    void nestedForStatementsWorkProperly() {
+        assertEquals("1\n2\n2\n4\n", compile("for (x in [1, 2]) { for (y in [1, 2]) { print(x * y) } }"));
+    }
+
+    @Test
+    void comparisonsInConditionsWorkProperly() {
+        assertEquals("2\n3\n", compile("for (x in [1, 2, 3]) { if (x >= 2) { print(x) } }"));
+        assertEquals("1\n", compile("for (x in [1, 2, 3]) { if ((x < 2)) { print(x) } }"));
+        assertEquals("2\n", compile("for (x in [1, 2, 3]) { if (x == 2) { print(x) } }"));
+        assertEquals("b\n", compile("for (x in [\"a\", \"b\"]) { if (x == \"b\") { print(x) } }"));
+        assertEquals("false\ntrue\n", compile("for (x in [1, 2]) { print(x != 1) }"));
+    }
+
+    @Test
+    void conditionsOnFunctionResultsWorkProperly() {
+        assertEquals("yes\n", compile("function big(x : int) : bool { return x > 10 }" +
+                "if (big(11)) { print(\"yes\") } else { print(\"no\") }"));
+        assertEquals("no\n", compile("function big(x : int) : bool { return x > 10 }" +
+                "if (not big(11)) { print(\"yes\") } else { print(\"no\") }"));
+    }
+}
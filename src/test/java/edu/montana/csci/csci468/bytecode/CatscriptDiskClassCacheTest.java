@@ -0,0 +1,122 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptDiskClassCacheTest extends CatscriptTestBase {
+
+    @Test
+    void storedClassesAreLoadedByOtherCaches(@TempDir Path directory) {
+        CompileOptions first = CompileOptions.defaults().setDiskCache(new DiskClassCache(directory));
+        assertEquals("3\n", run(ByteCodeGenerator.compileSource("print(1 + 2)", OptimizationLevel.O1, first)));
+        assertEquals(1, first.getDiskCache().getMisses());
+
+        // a second cache on the same directory stands in for another process
+        CompileOptions second = CompileOptions.defaults().setDiskCache(new DiskClassCache(directory));
+        assertEquals("3\n", run(ByteCodeGenerator.compileSource("print(1 + 2)", OptimizationLevel.O1, second)));
+        assertEquals(1, second.getDiskCache().getHits());
+        assertEquals(0, second.getDiskCache().getMisses());
+    }
+
+    @Test
+    void keysDependOnVariantAndCompilerVersion() {
+        String key = DiskClassCache.keyFor("print(1)", "O1");
+        assertEquals(key, DiskClassCache.keyFor("print(1)", "O1"));
+        assertNotEquals(key, DiskClassCache.keyFor("print(1)", "O2"));
+        assertNotEquals(key, CompiledClassCache.keyFor("print(1)", "O1"));
+    }
+
+    @Test
+    void rebuildingTheCompilerChangesItsBuild(@TempDir Path directory) throws IOException {
+        assertNotEquals("unknown", DiskClassCache.BUILD);
+        Path classFile = directory.resolve("edu").resolve("Generator.class");
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, new byte[]{1, 2, 3});
+        Files.write(directory.resolve("notes.txt"), new byte[]{1});
+        String build = DiskClassCache.fingerprint(directory);
+        assertEquals(build, DiskClassCache.fingerprint(directory));
+
+        // other files don't matter, any change to a class does
+        Files.write(directory.resolve("notes.txt"), new byte[]{2});
+        assertEquals(build, DiskClassCache.fingerprint(directory));
+        Files.write(classFile, new byte[]{1, 2, 4});
+        assertNotEquals(build, DiskClassCache.fingerprint(directory));
+    }
+
+    @Test
+    void corruptEntriesAreRecompiled(@TempDir Path directory) throws IOException {
+        DiskClassCache cache = new DiskClassCache(directory);
+        String key = DiskClassCache.keyFor("print(1)", "O1");
+        Files.write(directory.resolve(key + ".class"), new byte[]{1, 2, 3, 4, 5});
+        CompileOptions options = CompileOptions.defaults().setDiskCache(cache);
+        assertEquals("1\n", run(ByteCodeGenerator.compileSource("print(1)", OptimizationLevel.O1, options)));
+        assertNotNull(cache.read(key));
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted(@TempDir Path directory) throws IOException {
+        byte[] classBytes = classBytes("print(1)");
+        DiskClassCache cache = new DiskClassCache(directory, classBytes.length * 2L);
+        cache.write("a", classBytes);
+        cache.write("b", classBytes);
+        Files.setLastModifiedTime(directory.resolve("a.class"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(directory.resolve("b.class"), FileTime.fromMillis(2000));
+        cache.write("c", classBytes);
+        assertEquals(List.of("b.class", "c.class"), files(directory));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void concurrentWritersLeaveOneWholeEntry(@TempDir Path directory) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Class<? extends CatScriptProgram>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                // separate caches, like separate processes sharing the directory
+                CompileOptions options = CompileOptions.defaults().setDiskCache(new DiskClassCache(directory));
+                results.add(executor.submit(() -> ByteCodeGenerator.compileSource("print(42)", OptimizationLevel.O1, options)));
+            }
+            for (Future<Class<? extends CatScriptProgram>> result : results) {
+                assertEquals("42\n", run(result.get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(List.of(DiskClassCache.keyFor("print(42)", "O1") + ".class"), files(directory));
+    }
+
+    private byte[] classBytes(String src) {
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(src, OptimizationLevel.O0));
+        generator.compileToClass();
+        return generator.getClassBytes();
+    }
+
+    private String run(Class<? extends CatScriptProgram> programClass) {
+        CatScriptProgram program = ByteCodeGenerator.newInstance(programClass);
+        program.execute();
+        return program.getOutput();
+    }
+
+    private List<String> files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+}
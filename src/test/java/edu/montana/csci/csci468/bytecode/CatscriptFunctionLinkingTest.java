@@ -0,0 +1,93 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptFunctionLinkingTest extends CatscriptTestBase {
+
+    private static final String PROGRAM = "var scale = 10\n" +
+            "function twice(x : int) : int { return x * 2 }\n" +
+            "function f(x : int) : int { return twice(x) + 1 }\n" +
+            "print(f(1))\n";
+
+    @Test
+    void callsGoThroughInvokeDynamic() {
+        CompileOptions options = CompileOptions.defaults().setDisassemble(true).setVerify(true);
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(PROGRAM, OptimizationLevel.O0), options);
+        assertEquals("3\n", run(generator.compileToClass()));
+        assertTrue(generator.getDisassembly().contains("INVOKEDYNAMIC fn$f"));
+        assertTrue(generator.getDisassembly().contains("FunctionLinker.bootstrap"));
+    }
+
+    @Test
+    void functionsCanBeRedefined() {
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(PROGRAM, OptimizationLevel.O0));
+        Class<? extends CatScriptProgram> programClass = generator.compileToClass();
+        assertEquals("3\n", run(programClass));
+
+        // the new version reaches globals and the other functions of the program
+        String edited = PROGRAM.replace("return twice(x) + 1", "return twice(x) + scale");
+        generator.redefineFunction(parseAndOptimize(edited, OptimizationLevel.O0).getFunction("f"));
+        assertEquals("12\n", run(programClass));
+    }
+
+    @Test
+    void functionsCanBeRedefinedBeforeTheyAreLinked() {
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(PROGRAM, OptimizationLevel.O0));
+        Class<? extends CatScriptProgram> programClass = generator.compileToClass();
+        String edited = PROGRAM.replace("return x * 2", "return x * 3");
+        generator.redefineFunction(parseAndOptimize(edited, OptimizationLevel.O0).getFunction("twice"));
+        assertEquals("4\n", run(programClass));
+    }
+
+    @Test
+    void recursiveRedefinitionsCallThemselves() {
+        String src = "function count(n : int) : int { if (n == 0) { return 0 }\n return count(n - 1) + 1 }\n" +
+                "print(count(5))\n";
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(src, OptimizationLevel.O0));
+        Class<? extends CatScriptProgram> programClass = generator.compileToClass();
+        assertEquals("5\n", run(programClass));
+        String edited = src.replace("count(n - 1) + 1", "count(n - 1) + 2");
+        generator.redefineFunction(parseAndOptimize(edited, OptimizationLevel.O0).getFunction("count"));
+        assertEquals("10\n", run(programClass));
+    }
+
+    @Test
+    void splitFunctionsCanBeRedefined() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompileOptions options = CompileOptions.defaults().setCodegenExecutor(executor).setFunctionsPerClass(1);
+            ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(PROGRAM, OptimizationLevel.O0), options);
+            Class<? extends CatScriptProgram> programClass = generator.compileToClass();
+            assertEquals("3\n", run(programClass));
+            String edited = PROGRAM.replace("return x * 2", "return x - scale");
+            generator.redefineFunction(parseAndOptimize(edited, OptimizationLevel.O0).getFunction("twice"));
+            assertEquals("-8\n", run(programClass));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void signaturesCannotChange() {
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(PROGRAM, OptimizationLevel.O0));
+        run(generator.compileToClass());
+        String edited = PROGRAM.replace("function twice(x : int) : int { return x * 2 }",
+                "function twice(x : int) : string { return \"two\" }").replace("return twice(x) + 1", "return 1");
+        assertThrows(IllegalArgumentException.class,
+                () -> generator.redefineFunction(parseAndOptimize(edited, OptimizationLevel.O0).getFunction("twice")));
+    }
+
+    private String run(Class<? extends CatScriptProgram> programClass) {
+        CatScriptProgram program = ByteCodeGenerator.newInstance(programClass);
+        program.execute();
+        return program.getOutput();
+    }
+}
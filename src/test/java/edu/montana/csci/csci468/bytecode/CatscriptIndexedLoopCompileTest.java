@@ -0,0 +1,40 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptIndexedLoopCompileTest extends CatscriptTestBase {
+
+    private static final String PROGRAM = "var names = [\"a\", \"b\"]\n" +
+            "function show(l : list<object>) { for (x in l) { print(x) } }\n" +
+            "function make() : list<string> { return [\"c\", \"d\"] }\n" +
+            "for (n in names) { print(n) }\n" +
+            "show(names)\n" +
+            "for (m in make()) { print(m) }\n";
+
+    @Test
+    void listsThatAreNotLiteralsAreWalkedByIndex() {
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(PROGRAM, OptimizationLevel.O0),
+                CompileOptions.defaults().setDisassemble(true).setVerify(true));
+        generator.compileToClass();
+        assertFalse(generator.getDisassembly().contains("java/util/Iterator"), generator.getDisassembly());
+        assertTrue(generator.getDisassembly().contains("INSTANCEOF java/util/RandomAccess"));
+        assertEquals(executeProgram(PROGRAM), compile(PROGRAM));
+    }
+
+    @Test
+    void listsWithoutRandomAccessAreCopied() throws Exception {
+        Class<? extends CatScriptProgram> programClass =
+                new ByteCodeGenerator(parseAndOptimize(PROGRAM, OptimizationLevel.O0)).compileToClass();
+        CatScriptProgram program = ByteCodeGenerator.newInstance(programClass);
+        programClass.getMethod("fn$show", List.class).invoke(program, new LinkedList<>(List.of("x", "y")));
+        assertEquals("x\ny\n", program.getOutput());
+    }
+}
@@ -0,0 +1,96 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.eval.IntList;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.parser.CatscriptType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptIntListCompileTest extends CatscriptTestBase {
+
+    @Test
+    void intListsAreViewsOfBoxedValues() {
+        IntList ints = new IntList(new int[]{1, 2, 3}, false);
+        assertEquals(List.of(1, 2, 3), ints);
+        assertEquals(ints, new ArrayList<>(List.of(1, 2, 3)));
+        assertEquals(List.of(1, 2, 3).hashCode(), ints.hashCode());
+        assertEquals("[1, 2, 3]", ints.toString());
+        assertEquals("[true, false]", new IntList(new int[]{1, 0}, true).toString());
+
+        IntList grown = new IntList(false);
+        for (int i = 0; i < 20; i++) {
+            grown.addInt(i);
+        }
+        grown.add(0, -1);
+        grown.remove(1);
+        grown.set(1, 42);
+        assertEquals(20, grown.size());
+        assertEquals(-1, grown.getInt(0));
+        assertEquals(42, grown.get(1));
+        assertEquals(20, grown.elements().length);
+        assertThrows(IndexOutOfBoundsException.class, () -> grown.getInt(20));
+    }
+
+    @Test
+    void fromCopiesOnlyOtherLists() {
+        IntList ints = new IntList(new int[]{1, 2}, false);
+        assertSame(ints, IntList.from(ints, false));
+        assertArrayEquals(new int[]{1, 0}, IntList.from(List.of(true, false), true).elements());
+    }
+
+    @Test
+    void theInterpreterUsesIntLists() {
+        assertTrue(evaluateExpression("[1, 2, 3]") instanceof IntList);
+        assertTrue(evaluateExpression("[true, false]") instanceof IntList);
+        assertFalse(evaluateExpression("[1, \"a\"]") instanceof IntList);
+        assertFalse(evaluateExpression("[]") instanceof IntList);
+    }
+
+    @Test
+    void compiledLoopsIndexTheArray() {
+        String src = "var total = 0\nfor (x in [1, 2, 3]) { total = total + x }\nprint(total)\n";
+        CompileOptions options = CompileOptions.defaults().setDisassemble(true);
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(src, OptimizationLevel.O0), options);
+        generator.compileToClass();
+        assertTrue(generator.getDisassembly().contains("NEWARRAY T_INT"));
+        assertTrue(generator.getDisassembly().contains("IALOAD"));
+        assertFalse(generator.getDisassembly().contains("java/util/Iterator"));
+        assertFalse(generator.getDisassembly().contains("Integer.valueOf"));
+        assertEquals("6\n", compile(src));
+    }
+
+    @Test
+    void compiledIntListsBehaveLikeLists() {
+        String src = "var ints = [1, 2, 3]\n" +
+                "var bools = [true, false]\n" +
+                "function sum(l : list<int>) : int { var total = 0\n for (x in l) { total = total + x }\n return total }\n" +
+                "function show(l : list<object>) { for (x in l) { print(x) } }\n" +
+                "print(ints)\n" +
+                "print(\"bools \" + bools)\n" +
+                "print(ints == [1, 2, 3])\n" +
+                "print(sum(ints))\n" +
+                "show(ints)\n" +
+                "for (b in bools) { if (b) { print(\"yes\") } else { print(\"no\") } }\n" +
+                "for (x in [1, 2]) { print(sum([x, x * 10])) }\n";
+        assertEquals(executeProgram(src), compile(src));
+        assertEquals(executeProgram(src), compile(src, OptimizationLevel.O2));
+    }
+
+    @Test
+    void listsWithNullsOrMixedValuesAreNotUnboxed() {
+        assertEquals(CatscriptType.getListType(CatscriptType.OBJECT), parseExpression("[1, null]").getType());
+        assertEquals(CatscriptType.getListType(CatscriptType.OBJECT), parseExpression("[true, 1]").getType());
+        assertEquals(CatscriptType.getListType(CatscriptType.STRING), parseExpression("[null, \"a\"]").getType());
+        String nulls = "for (x in [1, null]) { print(x) }\n";
+        assertEquals("1\nnull\n", executeProgram(nulls));
+        assertEquals("1\nnull\n", compile(nulls));
+        String mixed = "for (x in [1, \"a\"]) { print(x) }\n";
+        assertEquals("1\na\n", executeProgram(mixed));
+        assertEquals("1\na\n", compile(mixed));
+    }
+}
@@ -0,0 +1,69 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptJarCompilerTest extends CatscriptTestBase {
+
+    private static final String PROGRAM = "var total = 0\n" +
+            "function add(x : int, y : int) : int { return x + y }\n" +
+            "for (i in [1, 2, 3]) { total = add(total, i) }\n" +
+            "print(\"total \" + total)\n" +
+            "print([1, 2])\n" +
+            "print(total > 5)\n";
+
+    @Test
+    void jarsContainOnlyTheProgramAndItsRuntime(@TempDir Path directory) throws IOException {
+        Path jar = directory.resolve("total.jar");
+        new JarCompiler().writeJar(parseAndOptimize(PROGRAM, OptimizationLevel.O1), "Total", jar);
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            assertEquals("Total", jarFile.getManifest().getMainAttributes().getValue("Main-Class"));
+            List<String> names = jarFile.stream().map(entry -> entry.getName()).sorted().collect(Collectors.toList());
+            assertEquals(List.of("META-INF/MANIFEST.MF", "Total.class",
+                    "edu/montana/csci/csci468/bytecode/FunctionLinker$CallSites.class",
+                    "edu/montana/csci/csci468/bytecode/FunctionLinker.class",
+                    "edu/montana/csci/csci468/bytecode/StandaloneProgram.class",
+                    "edu/montana/csci/csci468/eval/IntList.class"), names);
+        }
+    }
+
+    @Test
+    void jarsRunWithJavaDashJar(@TempDir Path directory) throws Exception {
+        Path jar = directory.resolve("total.jar");
+        new JarCompiler().writeJar(parseAndOptimize(PROGRAM, OptimizationLevel.O1), "Total", jar);
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-jar", jar.toString()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), output);
+        assertEquals(executeProgram(PROGRAM), output);
+    }
+
+    @Test
+    void jarsAreReproducible(@TempDir Path directory) throws IOException {
+        Path first = directory.resolve("first.jar");
+        Path second = directory.resolve("second.jar");
+        new JarCompiler().writeJar(parseAndOptimize(PROGRAM, OptimizationLevel.O1), "Total", first);
+        new JarCompiler().writeJar(parseAndOptimize(PROGRAM, OptimizationLevel.O1), "Total", second);
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+    }
+
+    @Test
+    void mainClassNamesComeFromTheScript() {
+        assertEquals("HelloWorld", JarCompiler.mainClassNameFor(Paths.get("scripts", "hello-world.cat")));
+        assertEquals("Report", JarCompiler.mainClassNameFor(Paths.get("report.cat")));
+        assertEquals("CatScript2fast", JarCompiler.mainClassNameFor(Paths.get("2fast.cat")));
+    }
+}
@@ -0,0 +1,47 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CatscriptLocalSlotsCompileTest extends CatscriptTestBase {
+
+    @Test
+    void siblingBlocksReuseSlots() {
+        String src = "for (x in [1, 2]) { var y = x * 2 print(y) }\n" +
+                "for (a in [3]) { var b = a * 2 print(b) }\n" +
+                "if (true) { var c = 1 print(c) } else { var d = 2 print(d) }\n";
+        assertEquals("2\n4\n6\n1\n", compile(src));
+        // this, then list, index, loop variable and body variable of one loop at a time
+        assertEquals(5, maxLocalsOfExecute(src));
+    }
+
+    @Test
+    void slotsAreReusedForDifferentTypes() {
+        String src = "for (x in [1, 2]) { print(x) }\n" +
+                "for (s in [\"a\", \"b\"]) { print(s) }\n";
+        assertEquals("1\n2\na\nb\n", compile(src));
+        assertEquals(4, maxLocalsOfExecute(src));
+    }
+
+    @Test
+    void nestedBlocksKeepOuterSlots() {
+        String src = "for (x in [1, 2]) { for (y in [10]) { print(x + y) } print(x) }";
+        assertEquals("11\n1\n12\n2\n", compile(src));
+        assertEquals(7, maxLocalsOfExecute(src));
+    }
+
+    private int maxLocalsOfExecute(String src) {
+        CompileOptions options = CompileOptions.defaults().setDisassemble(true);
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(src, OptimizationLevel.O0), options);
+        generator.compileToClass();
+        Matcher matcher = Pattern.compile("execute\\(\\)V[\\s\\S]*?MAXLOCALS = (\\d+)").matcher(generator.getDisassembly());
+        matcher.find();
+        return Integer.parseInt(matcher.group(1));
+    }
+}
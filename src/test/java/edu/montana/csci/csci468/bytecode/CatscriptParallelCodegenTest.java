@@ -0,0 +1,90 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.jar.JarFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptParallelCodegenTest extends CatscriptTestBase {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void functionsAreSplitIntoSeparateClasses() {
+        String src = manyFunctions(40);
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(src, OptimizationLevel.O0), splitOptions());
+        CatScriptProgram program = generator.compileToBytecode();
+        program.execute();
+        assertEquals(executeProgram(src), program.getOutput());
+        // 40 functions, 8 to a class
+        assertEquals(6, generator.getClasses().size());
+    }
+
+    @Test
+    void splitFunctionsCallEachOtherAndReachGlobals() {
+        String src = "var calls = 0\n" +
+                "function even(n : int) : bool { calls = calls + 1\n if (n == 0) { return true }\n return odd(n - 1) }\n" +
+                "function odd(n : int) : bool { calls = calls + 1\n if (n == 0) { return false }\n return even(n - 1) }\n" +
+                "function show(x : object) { print(x) }\n" +
+                "show(even(7))\n" +
+                "show(odd(7))\n" +
+                "print(calls)\n";
+        CompileOptions options = splitOptions().setFunctionsPerClass(1).setVerify(true).setDisassemble(true);
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(src, OptimizationLevel.O0), options);
+        CatScriptProgram program = generator.compileToBytecode();
+        program.execute();
+        assertEquals("false\ntrue\n16\n", program.getOutput());
+        assertEquals(4, generator.getClasses().size());
+        assertTrue(generator.getDisassembly().contains("$Functions1.fn$odd"));
+    }
+
+    @Test
+    void smallProgramsStayInOneClass() {
+        String src = manyFunctions(4);
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(src, OptimizationLevel.O0), splitOptions());
+        generator.compileToClass();
+        assertEquals(1, generator.getClasses().size());
+    }
+
+    @Test
+    void splitProgramsCanBeWrittenToJars(@TempDir Path directory) throws IOException {
+        Path jar = directory.resolve("many.jar");
+        new JarCompiler(splitOptions()).writeJar(parseAndOptimize(manyFunctions(20), OptimizationLevel.O0), "Many", jar);
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            assertNotNull(jarFile.getEntry("Many$Functions0.class"));
+            assertNotNull(jarFile.getEntry("Many$Functions2.class"));
+        }
+    }
+
+    private CompileOptions splitOptions() {
+        return CompileOptions.defaults().setCodegenExecutor(executor).setFunctionsPerClass(8);
+    }
+
+    // each function calls the one before it
+    private String manyFunctions(int count) {
+        StringBuilder src = new StringBuilder("var total = 0\n");
+        src.append("function f0(x : int) : int { total = total + 1\n return x }\n");
+        for (int i = 1; i < count; i++) {
+            src.append("function f").append(i).append("(x : int) : int { total = total + 1\n return f")
+                    .append(i - 1).append("(x + 1) }\n");
+        }
+        src.append("print(f").append(count - 1).append("(0))\n");
+        src.append("print(total)\n");
+        return src.toString();
+    }
+}
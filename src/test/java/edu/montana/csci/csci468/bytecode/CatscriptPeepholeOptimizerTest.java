@@ -0,0 +1,120 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptPeepholeOptimizerTest extends CatscriptTestBase implements Opcodes {
+
+    @Test
+    void boxUnboxPairsAreRemoved() {
+        MethodNode method = method(
+                new VarInsnNode(ILOAD, 1),
+                new MethodInsnNode(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;"),
+                new TypeInsnNode(CHECKCAST, "java/lang/Integer"),
+                new MethodInsnNode(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I"),
+                new InsnNode(IRETURN));
+        new PeepholeOptimizer().optimize(method);
+        assertEquals(List.of(ILOAD, IRETURN), opcodes(method));
+    }
+
+    @Test
+    void deadStoresAndStoreLoadPairsAreRemoved() {
+        MethodNode method = method(
+                new InsnNode(ICONST_1),
+                new VarInsnNode(ISTORE, 1),
+                new InsnNode(ICONST_2),
+                new VarInsnNode(ISTORE, 2),
+                new VarInsnNode(ILOAD, 2),
+                new InsnNode(IRETURN));
+        new PeepholeOptimizer().optimize(method);
+        assertEquals(List.of(ICONST_2, IRETURN), opcodes(method));
+    }
+
+    @Test
+    void constantBranchesAreFolded() {
+        LabelNode elseLabel = new LabelNode();
+        LabelNode end = new LabelNode();
+        MethodNode method = method(
+                new InsnNode(ICONST_1),
+                new JumpInsnNode(IFEQ, elseLabel),
+                new InsnNode(ICONST_3),
+                new JumpInsnNode(GOTO, end),
+                elseLabel,
+                new InsnNode(ICONST_4),
+                end,
+                new InsnNode(IRETURN));
+        PeepholeOptimizer optimizer = new PeepholeOptimizer();
+        optimizer.optimize(method);
+        assertEquals(List.of(ICONST_3, IRETURN), opcodes(method));
+        assertEquals(4, optimizer.getRemovedInstructions());
+    }
+
+    @Test
+    void jumpsToJumpsAreThreaded() {
+        LabelNode first = new LabelNode();
+        LabelNode second = new LabelNode();
+        MethodNode method = method(
+                new VarInsnNode(ILOAD, 1),
+                new JumpInsnNode(IFEQ, first),
+                new InsnNode(ICONST_1),
+                new InsnNode(IRETURN),
+                first,
+                new JumpInsnNode(GOTO, second),
+                second,
+                new InsnNode(ICONST_0),
+                new InsnNode(IRETURN));
+        new PeepholeOptimizer().optimize(method);
+        JumpInsnNode jump = (JumpInsnNode) method.instructions.get(1);
+        assertSame(second, jump.label);
+        assertFalse(opcodes(method).contains(GOTO));
+    }
+
+    @Test
+    void optimizedProgramsAreSmallerAndBehaveTheSame() {
+        String src = "function sign(x : int) : int {\n" +
+                "  if (x > 0) { return 1 } else { return 0 }\n" +
+                "}\n" +
+                "if (true) { print(sign(3)) } else { print(sign(-3)) }\n" +
+                "for (x in [1, 2]) { print(1) }\n";
+        ByteCodeGenerator plain = new ByteCodeGenerator(parseAndOptimize(src, OptimizationLevel.O0),
+                CompileOptions.defaults().setPeephole(false));
+        ByteCodeGenerator optimized = new ByteCodeGenerator(parseAndOptimize(src, OptimizationLevel.O0));
+        String expected = run(plain);
+        assertEquals("1\n1\n1\n", expected);
+        assertEquals(expected, run(optimized));
+        assertTrue(optimized.getClassBytes().length < plain.getClassBytes().length);
+    }
+
+    private String run(ByteCodeGenerator generator) {
+        CatScriptProgram program = generator.compileToBytecode();
+        program.execute();
+        return program.getOutput();
+    }
+
+    private MethodNode method(AbstractInsnNode... instructions) {
+        MethodNode method = new MethodNode(ACC_PUBLIC, "test", "(I)I", null, null);
+        for (AbstractInsnNode instruction : instructions) {
+            method.instructions.add(instruction);
+        }
+        return method;
+    }
+
+    private List<Integer> opcodes(MethodNode method) {
+        List<Integer> opcodes = new ArrayList<>();
+        for (AbstractInsnNode insn : method.instructions) {
+            if (insn.getOpcode() >= 0) {
+                opcodes.add(insn.getOpcode());
+            }
+        }
+        return opcodes;
+    }
+}
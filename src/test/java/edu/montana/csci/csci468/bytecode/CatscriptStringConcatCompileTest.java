@@ -0,0 +1,61 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptStringConcatCompileTest extends CatscriptTestBase {
+
+    @Test
+    void classesTargetTheRunningJvm() {
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize("print(1)", OptimizationLevel.O0));
+        generator.compileToClass();
+        int major = new ClassReader(generator.getClassBytes()).readShort(6);
+        assertEquals(ByteCodeGenerator.classfileVersion(), major);
+        assertTrue(major >= 55);
+    }
+
+    @Test
+    void concatenationUsesInvokeDynamic() {
+        String disassembly = disassemble("var s = \"b\"\nprint(\"a\" + s + 1 + true)");
+        assertTrue(disassembly.contains("INVOKEDYNAMIC makeConcatWithConstants"));
+        assertFalse(disassembly.contains("java/lang/StringBuilder"));
+        assertFalse(disassembly.contains("Integer.valueOf"));
+    }
+
+    @Test
+    void concatenationMatchesTheInterpreter() {
+        String src = "var s = \"b\"\n" +
+                "var l = [1, 2]\n" +
+                "var o : object = null\n" +
+                "print(\"a\" + s + 1 + true + l + o + (\"x\" + false))\n" +
+                "print(1 + 2 + \"c\")\n" +
+                "print(\"\\u0001\" + s)\n" +
+                "print(true)\n" +
+                "print(-5)\n";
+        assertEquals(executeProgram(src), compile(src));
+    }
+
+    @Test
+    void longChainsFallBackToStringBuilder() {
+        StringBuilder expression = new StringBuilder("\"\"");
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < ByteCodeGenerator.MAX_CONCAT_ARGUMENTS + 5; i++) {
+            expression.append(" + x");
+            expected.append(7);
+        }
+        String src = "var x = 7\nprint(" + expression + ")";
+        assertEquals(expected + "\n", compile(src));
+        assertTrue(disassemble(src).contains("java/lang/StringBuilder"));
+    }
+
+    private String disassemble(String src) {
+        CompileOptions options = CompileOptions.defaults().setDisassemble(true);
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(src, OptimizationLevel.O0), options);
+        generator.compileToClass();
+        return generator.getDisassembly();
+    }
+}
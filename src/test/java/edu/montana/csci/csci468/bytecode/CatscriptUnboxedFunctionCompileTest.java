@@ -0,0 +1,81 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.parser.ErrorType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptUnboxedFunctionCompileTest extends CatscriptTestBase {
+
+    private static final String PROGRAM = "function add(x : int, y : int) : int { return x + y }\n" +
+            "function flip(b : bool) : bool { if (b) { return false }\n return true }\n" +
+            "function greet(s : string) : string { return \"hi \" + s }\n" +
+            "function shout(x : int) { print(x) }\n" +
+            "function fact(n : int) : int { if (n < 2) { return 1 }\n return n * fact(n - 1) }\n" +
+            "print(add(1, 2))\n" +
+            "print(flip(true))\n" +
+            "print(greet(\"cat\"))\n" +
+            "shout(7)\n" +
+            "print(fact(5))\n";
+
+    @Test
+    void intsAndBoolsArePassedAndReturnedUnboxed() {
+        String disassembly = disassemble(PROGRAM);
+        assertTrue(disassembly.contains("public fn$add(II)I"), disassembly);
+        assertTrue(disassembly.contains("public fn$flip(I)I"), disassembly);
+        assertTrue(disassembly.contains("public fn$greet(Ljava/lang/String;)Ljava/lang/String;"), disassembly);
+        assertTrue(disassembly.contains("public fn$shout(I)V"), disassembly);
+        assertFalse(disassembly.contains("java/lang/Integer.intValue"), disassembly);
+        assertFalse(disassembly.contains("java/lang/Boolean.booleanValue"), disassembly);
+        assertEquals(executeProgram(PROGRAM), compile(PROGRAM));
+    }
+
+    @Test
+    void callsLinkDirectlyToTheFunctionMethod() {
+        String disassembly = disassemble(PROGRAM);
+        // the call site's only target is the generated instance method, no reflection or boxing
+        assertTrue(disassembly.contains("INVOKEDYNAMIC fn$add("), disassembly);
+        assertTrue(disassembly.contains("// handle kind 0x5 : INVOKEVIRTUAL"), disassembly);
+        assertTrue(disassembly.contains(".fn$add(II)I"), disassembly);
+        assertFalse(disassembly.contains("java/lang/reflect"), disassembly);
+    }
+
+    @Test
+    void functionsMustReturnOnEveryPath() {
+        // there is no default to fall back on: compiled code would return 0 or false, the interpreter null
+        assertEquals(ErrorType.MISSING_RETURN_STATEMENT, getParseError("function maybe(x : int) : int { if (x > 100) { return 1 } }"));
+        assertEquals(ErrorType.MISSING_RETURN_STATEMENT, getParseError("function maybe(x : int) : bool { for (y in [x]) { return true } }"));
+        assertEquals(ErrorType.MISSING_RETURN_STATEMENT, getParseError("function maybe(x : int) : string { if (x > 100) { return \"big\" } }"));
+        String src = "function sign(x : int) : int { if (x > 0) { return 1 } else { if (x < 0) { return -1 } else { return 0 } } }\n" +
+                "function big(x : int) : bool { if (x > 100) { return true }\n return false }\n" +
+                "print(sign(5))\n" +
+                "print(sign(-5))\n" +
+                "print(sign(0))\n" +
+                "print(big(1))\n";
+        assertEquals("1\n-1\n0\nfalse\n", executeProgram(src));
+        assertEquals("1\n-1\n0\nfalse\n", compile(src));
+        assertEquals("1\n-1\n0\nfalse\n", compile(src, OptimizationLevel.O2));
+    }
+
+    @Test
+    void recursiveFunctionsCompile() {
+        String src = "function fact(n : int) : int { if (n < 2) { return 1 }\n return n * fact(n - 1) }\n" +
+                "function count(n : int) : int { if (n == 0) { return 0 }\n return count(n - 1) + 1 }\n" +
+                "function even(n : int) : bool { if (n == 0) { return true }\n return odd(n - 1) }\n" +
+                "function odd(n : int) : bool { if (n == 0) { return false }\n return even(n - 1) }\n" +
+                "print(fact(10))\n" +
+                "print(count(2000))\n" +
+                "print(even(10))\n" +
+                "print(odd(7))\n";
+        assertEquals("3628800\n2000\ntrue\ntrue\n", compile(src));
+    }
+
+    private String disassemble(String src) {
+        ByteCodeGenerator generator = new ByteCodeGenerator(parseAndOptimize(src, OptimizationLevel.O0),
+                CompileOptions.defaults().setDisassemble(true).setVerify(true));
+        generator.compileToClass();
+        return generator.getDisassembly();
+    }
+}
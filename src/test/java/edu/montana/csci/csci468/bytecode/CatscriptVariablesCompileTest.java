@@ -0,0 +1,48 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CatscriptVariablesCompileTest extends CatscriptTestBase {
+
+    @Test
+    void globalsAreVisibleAndAssignableInFunctions() {
+        assertEquals("1\n2\n", compile("var count = 0\n" +
+                "function inc() { count = count + 1 print(count) }\n" +
+                "inc()\n" +
+                "inc()\n"));
+        assertEquals("true\n", compile("var flag : bool = false\n" +
+                "function set() { flag = true }\n" +
+                "set()\n" +
+                "print(flag)\n"));
+    }
+
+    @Test
+    void localsAreAssignable() {
+        assertEquals("6\n", compile("function sum(l : list<int>) : int {\n" +
+                "  var total = 0\n" +
+                "  for (x in l) { total = total + x }\n" +
+                "  return total\n" +
+                "}\n" +
+                "print(sum([1, 2, 3]))"));
+    }
+
+    @Test
+    void blockLocalsDoNotShadowLaterGlobals() {
+        assertEquals("1\n2\n2\n", compile("for (x in [1]) { print(x) }\n" +
+                "var x = 2\n" +
+                "function show() { print(x) }\n" +
+                "print(x)\n" +
+                "show()\n"));
+    }
+
+    @Test
+    void objectVariablesHoldAnyValue() {
+        assertEquals("1\nfoo\n", compile("var o : object = 1\n" +
+                "print(o)\n" +
+                "o = \"foo\"\n" +
+                "print(o)\n"));
+    }
+}
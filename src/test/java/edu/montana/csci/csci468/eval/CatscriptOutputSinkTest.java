@@ -0,0 +1,92 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompiledProgram;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptOutputSinkTest extends CatscriptTestBase {
+
+    // prints far more than one buffer
+    private static final String PROGRAM = "var total = 0\n" +
+            "for (i in [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]) { for (j in [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]) {\n" +
+            "for (k in [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]) { total = total + 1\n print(\"line \" + total) } } }\n";
+
+    @Test
+    void bufferedSinksKeepTheOutput() {
+        OutputSink sink = OutputSink.buffer();
+        sink.print(1);
+        sink.print("\u00e9");
+        sink.flush();
+        assertFalse(sink.isStreaming());
+        assertEquals("1\n\u00e9\n", sink.getOutput());
+        assertEquals(4, sink.length());
+    }
+
+    @Test
+    void streamingSinksWriteInChunks() {
+        CountingWriter writer = new CountingWriter();
+        OutputSink sink = OutputSink.to(writer);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            sink.print("line " + i);
+            expected.append("line ").append(i).append("\n");
+        }
+        assertTrue(writer.writes > 0, "full buffers are written before the end");
+        sink.flush();
+        assertEquals(expected.toString(), writer.toString());
+        assertEquals(expected.length(), sink.length());
+        assertThrows(IllegalStateException.class, sink::getOutput);
+    }
+
+    @Test
+    void streamsAreUtf8() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        OutputSink sink = OutputSink.to(stream);
+        sink.print("\u00e9");
+        sink.flush();
+        assertEquals("\u00e9\n", stream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void theInterpreterStreams() {
+        CatScriptProgram program = parseAndOptimize(PROGRAM, OptimizationLevel.O0);
+        StringWriter writer = new StringWriter();
+        CatscriptRuntime runtime = new CatscriptRuntime(OutputSink.to(writer));
+        program.execute(runtime);
+        runtime.getOutputSink().flush();
+        assertEquals(executeProgram(PROGRAM), writer.toString());
+
+        StringWriter programWriter = new StringWriter();
+        program.setOutput(OutputSink.to(programWriter));
+        program.execute();
+        assertEquals(writer.toString(), programWriter.toString());
+    }
+
+    @Test
+    void compiledProgramsStream() {
+        CompiledProgram program = new ByteCodeGenerator(parseAndOptimize(PROGRAM, OptimizationLevel.O0)).compile();
+        CountingWriter writer = new CountingWriter();
+        program.run(OutputSink.to(writer));
+        assertTrue(writer.writes > 1);
+        assertEquals(executeProgram(PROGRAM), writer.toString());
+    }
+
+    private static class CountingWriter extends StringWriter {
+        private int writes;
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            writes++;
+            super.write(chars, offset, length);
+        }
+    }
+}
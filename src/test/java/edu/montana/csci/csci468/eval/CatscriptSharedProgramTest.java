@@ -0,0 +1,68 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.optimizer.OptimizationLevel;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptSharedProgramTest extends CatscriptTestBase {
+
+    private static final String PROGRAM = "var total = 0\n" +
+            "function add(x : int, y : int) : int { return x + y }\n" +
+            "for (i in [1, 2, 3]) { total = add(total, i) }\n" +
+            "print(\"total \" + total + \" of \" + [1, 2, 3])\n";
+
+    @Test
+    void executionsKeepTheirOutputInTheRuntime() {
+        CatScriptProgram program = parseAndOptimize(PROGRAM, OptimizationLevel.O0);
+        CatscriptRuntime first = new CatscriptRuntime();
+        CatscriptRuntime second = new CatscriptRuntime();
+        program.execute(first);
+        program.execute(second);
+        assertEquals("total 6 of [1, 2, 3]\n", first.getOutput());
+        assertEquals(first.getOutput(), second.getOutput());
+        assertEquals("", program.getOutput());
+    }
+
+    @Test
+    void expressionProgramsPrintToTheRuntime() {
+        CatScriptProgram program = parseAndOptimize("1 + 2", OptimizationLevel.O0);
+        CatscriptRuntime runtime = new CatscriptRuntime();
+        program.execute(runtime);
+        assertEquals("3\n", runtime.getOutput());
+    }
+
+    @Test
+    void verifiedProgramsCanBeExecutedConcurrently() throws Exception {
+        CatScriptProgram program = parseAndOptimize(PROGRAM, OptimizationLevel.O0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> runs = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                runs.add(executor.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        CatscriptRuntime runtime = new CatscriptRuntime();
+                        program.execute(runtime);
+                        if (!runtime.getOutput().equals("total 6 of [1, 2, 3]\n")) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> run : runs) {
+                assertTrue(run.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.expressions.AdditiveExpression;
+import edu.montana.csci.csci468.parser.expressions.IdentifierExpression;
+import edu.montana.csci.csci468.parser.statements.PrintStatement;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CatscriptStringConcatenationTest extends CatscriptTestBase {
+
+    @Test
+    void stringChainsAreFlattened() {
+        AdditiveExpression expr = parseExpression("\"a\" + 1 + (\"b\" + true) + null");
+        assertEquals(5, expr.getConcatenationOperands().size());
+    }
+
+    @Test
+    void integerPrefixIsNotFlattened() {
+        AdditiveExpression expr = parseExpression("1 + 2 + \"a\"");
+        assertEquals(2, expr.getConcatenationOperands().size());
+        assertEquals("3a", evaluateExpression("1 + 2 + \"a\""));
+    }
+
+    @Test
+    void flattenedChainsEvaluateLikeNestedOnes() {
+        assertEquals("a1btruenull", evaluateExpression("\"a\" + 1 + (\"b\" + true) + null"));
+        assertEquals("x-y-z\n", executeProgram("var s = \"y\"\n" +
+                "print(\"x\" + \"-\" + s + \"-\" + \"z\")"));
+    }
+
+    @Test
+    void chainsWithIdentifiersKeepOperandOrder() {
+        PrintStatement print = parseStatement("var s = \"y\"\n" +
+                "print(s + 1 + s)", 1);
+        AdditiveExpression expr = (AdditiveExpression) print.getExpression();
+        assertEquals(3, expr.getConcatenationOperands().size());
+        assertTrue(expr.getConcatenationOperands().get(0) instanceof IdentifierExpression);
+    }
+}
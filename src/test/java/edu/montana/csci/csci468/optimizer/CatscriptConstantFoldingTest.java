@@ -0,0 +1,116 @@
+package edu.montana.csci.csci468.optimizer;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.expressions.*;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
+import edu.montana.csci.csci468.parser.statements.PrintStatement;
+import edu.montana.csci.csci468.parser.statements.ReturnStatement;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptConstantFoldingTest extends CatscriptTestBase {
+
+    @Test
+    void arithmeticIsFolded() {
+        IntegerLiteralExpression expr = (IntegerLiteralExpression) foldExpression("3 * 60 * 60");
+        assertEquals(10800, expr.getValue());
+        assertEquals(-3, ((IntegerLiteralExpression) foldExpression("1 - (2 + 2)")).getValue());
+        assertEquals(5, ((IntegerLiteralExpression) foldExpression("-(-5)")).getValue());
+    }
+
+    @Test
+    void divisionByZeroIsNotFolded() {
+        assertTrue(foldExpression("1 / 0") instanceof FactorExpression);
+    }
+
+    @Test
+    void stringConcatenationIsFolded() {
+        StringLiteralExpression expr = (StringLiteralExpression) foldExpression("\"prefix\" + \"-\" + \"suffix\"");
+        assertEquals("prefix-suffix", expr.getValue());
+        assertEquals("1a", ((StringLiteralExpression) foldExpression("1 + \"a\"")).getValue());
+        assertEquals("nulla", ((StringLiteralExpression) foldExpression("null + \"a\"")).getValue());
+        assertEquals("3a", ((StringLiteralExpression) foldExpression("1 + 2 + \"a\"")).getValue());
+    }
+
+    @Test
+    void booleanExpressionsAreFolded() {
+        assertFalse(((BooleanLiteralExpression) foldExpression("not true")).getValue());
+        assertTrue(((BooleanLiteralExpression) foldExpression("1 < 2")).getValue());
+        assertTrue(((BooleanLiteralExpression) foldExpression("1000 == 1000")).getValue());
+        assertTrue(((BooleanLiteralExpression) foldExpression("true != null")).getValue());
+    }
+
+    @Test
+    void effectivelyFinalGlobalsArePropagated() {
+        CatScriptProgram program = fold("var x = 2\n" +
+                "print(x * 3)");
+        PrintStatement print = (PrintStatement) program.getStatements().get(1);
+        assertEquals(6, ((IntegerLiteralExpression) print.getExpression()).getValue());
+    }
+
+    @Test
+    void reassignedGlobalsAreNotPropagated() {
+        CatScriptProgram program = fold("var x = 2\n" +
+                "x = 3\n" +
+                "print(x * 3)");
+        PrintStatement print = (PrintStatement) program.getStatements().get(2);
+        assertTrue(print.getExpression() instanceof FactorExpression);
+    }
+
+    @Test
+    void globalsWithWiderDeclaredTypeAreNotPropagated() {
+        CatScriptProgram program = fold("var x : object = 2\n" +
+                "print(x)");
+        PrintStatement print = (PrintStatement) program.getStatements().get(1);
+        assertTrue(print.getExpression() instanceof IdentifierExpression);
+    }
+
+    @Test
+    void globalsArePropagatedIntoFunctionsOnlyWhenInitializedBeforeCalls() {
+        CatScriptProgram program = fold("var x = 2\n" +
+                "function foo() : int { return x }\n" +
+                "print(foo())");
+        FunctionDefinitionStatement foo = program.getFunction("foo");
+        Expression returned = ((ReturnStatement) foo.getBody().get(0)).getExpression();
+        assertTrue(returned instanceof IntegerLiteralExpression);
+
+        program = fold("function foo() : int { return 1 }\n" +
+                "print(foo())\n" +
+                "var x = 2\n" +
+                "function bar() : int { return x }\n" +
+                "print(bar())");
+        returned = ((ReturnStatement) program.getFunction("bar").getBody().get(0)).getExpression();
+        assertTrue(returned instanceof IdentifierExpression);
+    }
+
+    @Test
+    void foldedProgramsProduceTheSameOutput() {
+        String src = "var x = 3 * 60\n" +
+                "var s = \"a\" + \"b\"\n" +
+                "function foo(y : int) : int { return y + x }\n" +
+                "for(i in [1, 2]) { print(foo(i) + 1) }\n" +
+                "if (not (x > 100)) { print(s) } else { print(s + \"!\") }\n";
+        assertEquals(executeProgram(src), executeFolded(src));
+    }
+
+    private Expression foldExpression(String src) {
+        CatScriptProgram program = new CatScriptParser().parseAsExpression(src);
+        program.verify();
+        return new PassManager(new ConstantFoldingPass()).optimize(program).getExpression();
+    }
+
+    private CatScriptProgram fold(String src) {
+        CatScriptProgram program = new CatScriptParser().parse(src);
+        program.verify();
+        return new PassManager(new ConstantFoldingPass()).optimize(program);
+    }
+
+    private String executeFolded(String src) {
+        CatScriptProgram program = fold(src);
+        program.execute();
+        return program.getOutput();
+    }
+}
@@ -0,0 +1,109 @@
+package edu.montana.csci.csci468.optimizer;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.expressions.FunctionCallExpression;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.PrintStatement;
+import edu.montana.csci.csci468.parser.statements.VariableStatement;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptInliningTest extends CatscriptTestBase {
+
+    @Test
+    void singleReturnFunctionsAreInlined() {
+        CatScriptProgram program = inline("function double(x : int) : int { return x * 2 }\n" +
+                "var y = 3\n" +
+                "print(double(y) + 1)");
+        assertEquals(0, countCalls(program));
+        assertEquals("7\n", executeProgram("function double(x : int) : int { return x * 2 }\n" +
+                "var y = 3\n" +
+                "print(double(y) + 1)", OptimizationLevel.O2));
+    }
+
+    @Test
+    void argumentsWithSideEffectsAreNotSubstituted() {
+        CatScriptProgram program = inline("function say(x : int) : int { print(x) return x }\n" +
+                "function twice(x : int) : int { return x + x }\n" +
+                "print(twice(say(1)))");
+        assertEquals(2, countCalls(program));
+    }
+
+    @Test
+    void argumentsAreReadBeforeCallsInTheBody() {
+        String src = "var x = 1\n" +
+                "function g() : int { x = 5 return 1 }\n" +
+                "function f(a : int) : int { return g() + a }\n" +
+                "print(f(x))";
+        assertEquals(1, countCalls(inline(src).getStatements().get(3)));
+        assertEquals("2\n", executeProgram(src));
+        assertEquals("2\n", executeProgram(src, OptimizationLevel.O2));
+        assertEquals("2\n", compile(src, OptimizationLevel.O2));
+    }
+
+    @Test
+    void voidFunctionsAreSplicedWithRenamedLocals() {
+        String src = "function greet(name : string) {\n" +
+                "  var message = \"hi \" + name\n" +
+                "  print(message)\n" +
+                "}\n" +
+                "greet(\"a\")\n" +
+                "greet(\"b\")\n";
+        CatScriptProgram program = inline(src);
+        assertEquals(0, countCalls(program));
+        VariableStatement parameter = (VariableStatement) program.getStatements().get(1);
+        assertTrue(parameter.getVariableName().contains("$"));
+        assertEquals(executeProgram(src), executeProgram(src, OptimizationLevel.O2));
+    }
+
+    @Test
+    void recursiveFunctionsAreNotInlined() {
+        CatScriptProgram program = inline("function count(x : int) {\n" +
+                "  print(x)\n" +
+                "  if (x > 0) { count(x - 1) }\n" +
+                "}\n" +
+                "count(3)");
+        assertEquals(2, countCalls(program));
+    }
+
+    @Test
+    void functionsOverBudgetAreNotInlined() {
+        CatScriptProgram program = new CatScriptParser().parse("function foo(x : int) : int { return x * 2 + x * 3 }\n" +
+                "print(foo(1))");
+        program.verify();
+        program = new PassManager(new InliningPass(4)).optimize(program);
+        assertEquals(1, countCalls(program));
+    }
+
+    @Test
+    void shadowedGlobalsPreventInlining() {
+        String src = "function foo(x : int) {\n" +
+                "  print(getX())\n" +
+                "}\n" +
+                "var x = 1\n" +
+                "function getX() : int { return x }\n" +
+                "foo(2)";
+        CatScriptProgram program = inline(src);
+        // getX() must not be substituted into foo, where x is the parameter
+        assertEquals(1, countCalls(program.getFunction("foo")));
+        assertEquals("1\n", executeProgram(src));
+        assertEquals("1\n", executeProgram(src, OptimizationLevel.O2));
+    }
+
+    private CatScriptProgram inline(String src) {
+        CatScriptProgram program = new CatScriptParser().parse(src);
+        program.verify();
+        return new PassManager(new InliningPass()).optimize(program);
+    }
+
+    private int countCalls(ParseElement element) {
+        int count = element instanceof FunctionCallExpression ? 1 : 0;
+        for (ParseElement child : element.getChildren()) {
+            count += countCalls(child);
+        }
+        return count;
+    }
+}
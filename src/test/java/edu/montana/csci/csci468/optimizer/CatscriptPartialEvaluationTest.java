@@ -0,0 +1,81 @@
+package edu.montana.csci.csci468.optimizer;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.expressions.StringLiteralExpression;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.PrintStatement;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptPartialEvaluationTest extends CatscriptTestBase {
+
+    @Test
+    void terminatingProgramsBecomeASinglePrint() {
+        String src = "function fib(n : int) : int {\n" +
+                "  if (n < 2) { return n }\n" +
+                "  return fib(n - 1) + fib(n - 2)\n" +
+                "}\n" +
+                "for (i in [1, 2, 3, 10]) { print(fib(i)) }\n";
+        CatScriptProgram program = partiallyEvaluate(src, new PartialEvaluationPass());
+        assertEquals(1, program.getStatements().size());
+        PrintStatement print = (PrintStatement) program.getStatements().get(0);
+        assertEquals("1\n1\n2\n55", ((StringLiteralExpression) print.getExpression()).getValue());
+        assertEquals(executeProgram(src), executeProgram(src, OptimizationLevel.O2));
+    }
+
+    @Test
+    void programsWithoutOutputBecomeEmpty() {
+        CatScriptProgram program = partiallyEvaluate("var x = 1\nx = x + 1", new PartialEvaluationPass());
+        assertTrue(program.getStatements().isEmpty());
+    }
+
+    @Test
+    void expressionProgramsAreEvaluated() {
+        CatScriptProgram program = partiallyEvaluate("1 + 2", new PartialEvaluationPass());
+        assertEquals("3\n", execute(program));
+    }
+
+    @Test
+    void stepBudgetFallsBackToFolding() {
+        String src = "function loop(n : int) : int {\n" +
+                "  if (n == 0) { return 0 }\n" +
+                "  return loop(n - 1)\n" +
+                "}\n" +
+                "print(1 + 1)\n" +
+                "print(loop(100))\n";
+        CatScriptProgram program = partiallyEvaluate(src, new PartialEvaluationPass(50, 1024));
+        assertEquals(3, program.getStatements().size());
+        PrintStatement print = (PrintStatement) program.getStatements().get(1);
+        assertEquals("2\n0\n", execute(program));
+        assertFalse(print.getExpression() instanceof StringLiteralExpression);
+    }
+
+    @Test
+    void outputBudgetFallsBackToFolding() {
+        String src = "var s = \"ab\"\n" +
+                "for (i in [1, 2, 3, 4, 5, 6, 7, 8]) { s = s + s }\n" +
+                "print(s)\n";
+        CatScriptProgram program = partiallyEvaluate(src, new PartialEvaluationPass(1000, 64));
+        assertEquals(3, program.getStatements().size());
+    }
+
+    @Test
+    void runtimeErrorsAreLeftForRuntime() {
+        String src = "print(1)\nprint(1 / (1 - 1))";
+        CatScriptProgram program = partiallyEvaluate(src, new PartialEvaluationPass());
+        assertEquals(2, program.getStatements().size());
+    }
+
+    private CatScriptProgram partiallyEvaluate(String src, PartialEvaluationPass pass) {
+        CatScriptProgram program = new CatScriptParser().parse(src);
+        program.verify();
+        return new PassManager(pass).optimize(program);
+    }
+
+    private String execute(CatScriptProgram program) {
+        program.execute();
+        return program.getOutput();
+    }
+}
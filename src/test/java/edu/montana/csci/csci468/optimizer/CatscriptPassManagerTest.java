@@ -0,0 +1,111 @@
+package edu.montana.csci.csci468.optimizer;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptPassManagerTest extends CatscriptTestBase {
+
+    @Test
+    void optimizationLevelsParse() {
+        assertEquals(OptimizationLevel.O0, OptimizationLevel.parse("-O0"));
+        assertEquals(OptimizationLevel.O1, OptimizationLevel.parse("O1"));
+        assertEquals(OptimizationLevel.O2, OptimizationLevel.parse("2"));
+        assertEquals(OptimizationLevel.O1, OptimizationLevel.parse(null));
+        assertEquals(OptimizationLevel.O2, OptimizationLevel.parse(" -o2 "));
+    }
+
+    @Test
+    void unknownOptimizationLevelsNameTheValidOnes() {
+        for (String bad : List.of("bogus", "-O3", "O", "-")) {
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> OptimizationLevel.parse(bad));
+            assertTrue(error.getMessage().contains(bad), error.getMessage());
+            assertTrue(error.getMessage().contains("-O0, -O1 or -O2"), error.getMessage());
+        }
+    }
+
+    @Test
+    void levelZeroRunsNoPasses() {
+        PassManager passManager = new PassManager(OptimizationLevel.O0);
+        assertTrue(passManager.getPasses().isEmpty());
+        CatScriptProgram program = parseAndOptimize("print(1 + 1)", OptimizationLevel.O0);
+        assertEquals(1, program.getStatements().size());
+    }
+
+    @Test
+    void statisticsAreRecordedPerPass() {
+        CatScriptProgram program = new CatScriptParser().parse("if (1 > 2) { print(1) } else { print(2) }");
+        program.verify();
+        PassManager passManager = new PassManager(OptimizationLevel.O1);
+        passManager.optimize(program);
+        List<PassStatistics> statistics = passManager.getStatistics();
+        assertEquals(2, statistics.size());
+        assertEquals("constant-folding", statistics.get(0).getPassName());
+        assertEquals(1, statistics.get(0).getChanges());
+        assertEquals("dead-code-elimination", statistics.get(1).getPassName());
+        assertTrue(statistics.get(1).getChanges() > 0);
+        assertTrue(passManager.getTotalChanges() > 1);
+    }
+
+    @Test
+    void constantIfStatementsAreRemoved() {
+        CatScriptProgram program = parseAndOptimize("if (true) { print(1) } else { print(2) }\n" +
+                "if (false) { print(3) }", OptimizationLevel.O1);
+        assertEquals(1, program.getStatements().size());
+        assertTrue(program.getStatements().get(0) instanceof PrintStatement);
+    }
+
+    @Test
+    void constantIfStatementsWithVariablesKeepTheirScope() {
+        CatScriptProgram program = parseAndOptimize("if (false) { print(1) } else { var x = 1 print(x) }\n" +
+                "var x = 2\n" +
+                "print(x)", OptimizationLevel.O1);
+        IfStatement ifStatement = (IfStatement) program.getStatements().get(0);
+        assertEquals(2, ifStatement.getTrueStatements().size());
+        assertTrue(ifStatement.getElseStatements().isEmpty());
+        assertEquals("1\n2\n", executeProgram("if (false) { print(1) } else { var x = 1 print(x) }\n" +
+                "var x = 2\n" +
+                "print(x)", OptimizationLevel.O1));
+    }
+
+    @Test
+    void statementsAfterReturnAreRemoved() {
+        CatScriptProgram program = parseAndOptimize("function foo() : int {\n" +
+                "  return 1\n" +
+                "  print(2)\n" +
+                "}\n" +
+                "print(foo())", OptimizationLevel.O1);
+        assertEquals(1, program.getFunction("foo").getBody().size());
+
+        program = parseAndOptimize("function foo() : int {\n" +
+                "  if (true) { return 1 }\n" +
+                "  print(2)\n" +
+                "  return 2\n" +
+                "}\n" +
+                "print(foo())", OptimizationLevel.O1);
+        List<Statement> body = program.getFunction("foo").getBody();
+        assertEquals(1, body.size());
+        assertTrue(body.get(0) instanceof ReturnStatement);
+    }
+
+    @Test
+    void optimizedProgramsProduceTheSameOutput() {
+        String src = "var limit = 2 * 2\n" +
+                "function describe(x : int) : string {\n" +
+                "  if (x > limit) { return \"big\" }\n" +
+                "  if (false) { print(\"never\") }\n" +
+                "  return \"small\"\n" +
+                "}\n" +
+                "for (i in [1, 5]) { print(describe(i)) }\n" +
+                "for (i in []) { print(i) }\n";
+        Object expected = executeProgram(src);
+        for (OptimizationLevel level : OptimizationLevel.values()) {
+            assertEquals(expected, executeProgram(src, level));
+        }
+    }
+}
@@ -50,6 +50,18 @@ public class CatscriptParserTypeCheckingTest extends CatscriptTestBase {
         assertEquals(ErrorType.INCOMPATIBLE_TYPES, getParseError("var x : bool = 10"));
     }
 
+    @Test
+    void nullIsNotAnIntOrBool() {
+        assertEquals(ErrorType.INCOMPATIBLE_TYPES, getParseError("var x : int = null"));
+        assertEquals(ErrorType.INCOMPATIBLE_TYPES, getParseError("var x = true\n" +
+                "x = null"));
+        assertEquals(ErrorType.INCOMPATIBLE_TYPES, getParseError("function foo(x : int) { print(x) }\n" +
+                "foo(null)"));
+        assertEquals(ErrorType.INCOMPATIBLE_TYPES, getParseError("function foo() : bool { return null }"));
+        VariableStatement var = parseStatement("var x : string = null");
+        assertEquals(CatscriptType.STRING, var.getType());
+    }
+
     @Test
     void assignmentTypeError() {
         assertEquals(ErrorType.INCOMPATIBLE_TYPES, getParseError("var x = 10\n" +
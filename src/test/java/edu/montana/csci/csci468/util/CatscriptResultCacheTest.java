@@ -0,0 +1,86 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptResultCacheTest extends CatscriptTestBase {
+
+    @Test
+    void keysDependOnSourceAndVariant() {
+        ResultCache cache = new ResultCache();
+        assertEquals(cache.keyFor("print(1)", "evaluate/O1"), cache.keyFor("print(1)", "evaluate/O1"));
+        assertNotEquals(cache.keyFor("print(1)", "evaluate/O1"), cache.keyFor("print(2)", "evaluate/O1"));
+        assertNotEquals(cache.keyFor("print(1)", "evaluate/O1"), cache.keyFor("print(1)", "compile/O1"));
+        assertNotEquals(cache.keyFor("print(1)", "evaluate/O1"), new ResultCache().keyFor("print(1)", "evaluate/O1"));
+    }
+
+    @Test
+    void etagsMatchIfNoneMatch() {
+        String key = new ResultCache().keyFor("print(1)", "evaluate/O1");
+        String etag = ResultCache.etagFor(key);
+        assertTrue(ResultCache.matches(etag, key));
+        assertTrue(ResultCache.matches("\"other\", W/" + etag, key));
+        assertTrue(ResultCache.matches("*", key));
+        assertFalse(ResultCache.matches("\"other\"", key));
+        assertFalse(ResultCache.matches(null, key));
+    }
+
+    @Test
+    void entriesAreEvictedByCountAndBytes() {
+        ResultCache cache = new ResultCache(2, 10, 10);
+        cache.put("a", new byte[4]);
+        cache.put("b", new byte[4]);
+        assertNotNull(cache.get("a"));
+        cache.put("c", new byte[4]);
+        assertNull(cache.get("b"));
+        assertEquals(8, cache.getBytes());
+
+        cache.put("d", new byte[8]);
+        assertEquals(1, cache.size());
+        assertEquals(8, cache.getBytes());
+        assertEquals(3, cache.getEvictions());
+
+        cache.put("e", new byte[11]);
+        assertNull(cache.get("e"));
+        assertNotNull(cache.get("d"));
+    }
+
+    @Test
+    void hitRateCountsNotModified() {
+        ResultCache cache = new ResultCache();
+        cache.get("a");
+        cache.put("a", new byte[1]);
+        cache.get("a");
+        cache.countNotModified();
+        assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    void containsIsNotCounted() {
+        ResultCache cache = new ResultCache();
+        assertFalse(cache.contains("a"));
+        cache.put("a", new byte[1]);
+        assertTrue(cache.contains("a"));
+        assertEquals(0, cache.getHits() + cache.getMisses());
+    }
+
+    @Test
+    void recordersStopCopyingAtTheEntryLimit() throws IOException {
+        ResultCache cache = new ResultCache(4, 100, 4);
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        ResultCache.Recorder small = cache.record(target);
+        small.write(new byte[]{1, 2, 3});
+        assertArrayEquals(new byte[]{1, 2, 3}, small.getBytes());
+
+        ResultCache.Recorder large = cache.record(target);
+        large.write(new byte[]{1, 2, 3});
+        large.write(new byte[]{4, 5});
+        assertNull(large.getBytes());
+        assertEquals(8, target.size());
+    }
+}